@@ -13,6 +13,10 @@ public class ProductAggregate {
     private final int weight;
     private final List<RecommendationSummary> recommendations;
     private final List<ReviewSummary> reviews;
+    /** Pass as {@code recommendationsAfter} to get the next page, {@code null} when there are no more. */
+    private final Integer recommendationsCursor;
+    /** Pass as {@code reviewsAfter} to get the next page, {@code null} when there are no more. */
+    private final Integer reviewsCursor;
     private final ServiceAddresses serviceAddresses;
 
     protected ProductAggregate() {
@@ -21,6 +25,8 @@ public class ProductAggregate {
         weight = 0;
         recommendations = null;
         reviews = null;
+        recommendationsCursor = null;
+        reviewsCursor = null;
         serviceAddresses = null;
     }
 }
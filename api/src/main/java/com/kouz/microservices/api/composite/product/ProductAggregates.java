@@ -0,0 +1,18 @@
+package com.kouz.microservices.api.composite.product;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@Getter
+public class ProductAggregates {
+    private final List<ProductAggregate> products;
+    private final List<Integer> missingProductIds;
+
+    protected ProductAggregates() {
+        products = null;
+        missingProductIds = null;
+    }
+}
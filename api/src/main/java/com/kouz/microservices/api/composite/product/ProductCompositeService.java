@@ -1,15 +1,23 @@
 package com.kouz.microservices.api.composite.product;
 
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Api(description = "REST API for composite product information.")
 public interface ProductCompositeService {
@@ -24,12 +32,14 @@ public interface ProductCompositeService {
     @PostMapping(
             value    = "/product-composite",
             consumes = "application/json")
-    void createCompositeProduct(@RequestBody ProductAggregate body);
+    Mono<Void> createCompositeProduct(@RequestBody ProductAggregate body);
 
     @ApiOperation(
             value = "${api.product-composite.get-composite-product.description}",
-            notes = "${api.product-composite.get-composite-product.notes}")
+            notes = "${api.product-composite.get-composite-product.notes}",
+            response = ProductAggregate.class)
     @ApiResponses(value = {
+            @ApiResponse(code = 304, message = "Not modified, the aggregate still has the ETag given in If-None-Match."),
             @ApiResponse(code = 400, message = "Bad Request, invalid format of the request. See response message for more information."),
             @ApiResponse(code = 404, message = "Not found, the specified id does not exist."),
             @ApiResponse(code = 422, message = "Unprocessable entity, input parameters caused the processing to fail. See response message for more information.")
@@ -37,7 +47,36 @@ public interface ProductCompositeService {
     @GetMapping(
             value    = "/product-composite/{productId}",
             produces = "application/json")
-    ProductAggregate getCompositeProduct(@PathVariable int productId);
+    Mono<ResponseEntity<byte[]>> getCompositeProduct(
+            @PathVariable int productId,
+            @RequestParam(value = "recommendationsAfter", required = false, defaultValue = "0") int recommendationsAfter,
+            @RequestParam(value = "reviewsAfter", required = false, defaultValue = "0") int reviewsAfter,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+    @ApiOperation(
+            value = "${api.product-composite.get-composite-products.description}",
+            notes = "${api.product-composite.get-composite-products.notes}")
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad Request, invalid format of the request. See response message for more information."),
+            @ApiResponse(code = 422, message = "Unprocessable entity, input parameters caused the processing to fail. See response message for more information.")
+    })
+    @GetMapping(
+            value    = "/product-composite",
+            produces = "application/json")
+    Mono<ProductAggregates> getCompositeProducts(@RequestParam(value = "productIds") List<Integer> productIds);
+
+    @ApiOperation(
+            value = "${api.product-composite.export-composite-products.description}",
+            notes = "${api.product-composite.export-composite-products.notes}")
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad Request, invalid format of the request. See response message for more information."),
+            @ApiResponse(code = 422, message = "Unprocessable entity, input parameters caused the processing to fail. See response message for more information.")
+    })
+    @GetMapping(
+            value    = "/product-composite/export",
+            produces = "application/x-ndjson")
+    Flux<ProductAggregate> exportCompositeProducts(
+            @RequestParam(value = "afterProductId", required = false, defaultValue = "0") int afterProductId);
 
     @ApiOperation(
             value = "${api.product-composite.delete-composite-product.description}",
@@ -47,5 +86,5 @@ public interface ProductCompositeService {
             @ApiResponse(code = 422, message = "Unprocessable entity, input parameters caused the processing to fail. See response message for more information.")
     })
     @DeleteMapping(value = "/product-composite/{productId}")
-    void deleteCompositeProduct(@PathVariable int productId);
+    Mono<Void> deleteCompositeProduct(@PathVariable int productId);
 }
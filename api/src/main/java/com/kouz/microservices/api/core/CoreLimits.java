@@ -0,0 +1,17 @@
+package com.kouz.microservices.api.core;
+
+/**
+ * Limits the core services enforce on their requests.
+ * <p>
+ * The composite reads them as well, so that its own configurable batch sizes cannot grow past what the core
+ * services accept.
+ */
+public final class CoreLimits {
+    /**
+     * Most productIds one by-product lookup of a core service accepts.
+     */
+    public static final int MAX_BATCH_SIZE = 500;
+
+    private CoreLimits() {
+    }
+}
@@ -0,0 +1,17 @@
+package com.kouz.microservices.api.core;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types the core services offer besides JSON.
+ * <p>
+ * Smile is Jackson's binary JSON. It carries the same data model as JSON but is smaller on the wire and cheaper
+ * to parse, so the composite uses it for its internal calls. External clients keep using JSON.
+ */
+public final class CoreMediaTypes {
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    private CoreMediaTypes() {
+    }
+}
@@ -0,0 +1,116 @@
+package com.kouz.microservices.api.core.grpc;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.recommendation.RecommendationBatchResult;
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.api.core.review.ReviewBatchResult;
+
+/**
+ * Conversions between the API models and their gRPC messages.
+ * <p>
+ * Protobuf strings cannot be null. A null string is sent as empty and an empty string is read back as null.
+ */
+public final class GrpcMessages {
+
+    private GrpcMessages() {
+    }
+
+    public static ProductMessage toMessage(Product api) {
+        return ProductMessage.newBuilder()
+                .setProductId(api.getProductId())
+                .setName(text(api.getName()))
+                .setWeight(api.getWeight())
+                .setServiceAddress(text(api.getServiceAddress()))
+                .setVersion(api.getVersion())
+                .build();
+    }
+
+    public static Product fromMessage(ProductMessage message) {
+        return new Product(message.getProductId(), nullable(message.getName()), message.getWeight(), nullable(message.getServiceAddress()),
+                message.getVersion());
+    }
+
+    public static RecommendationMessage toMessage(Recommendation api) {
+        return RecommendationMessage.newBuilder()
+                .setProductId(api.getProductId())
+                .setRecommendationId(api.getRecommendationId())
+                .setAuthor(text(api.getAuthor()))
+                .setRate(api.getRate())
+                .setContent(text(api.getContent()))
+                .setServiceAddress(text(api.getServiceAddress()))
+                .setVersion(api.getVersion())
+                .build();
+    }
+
+    public static Recommendation fromMessage(RecommendationMessage message) {
+        return new Recommendation(message.getProductId(), message.getRecommendationId(), nullable(message.getAuthor()),
+                message.getRate(), nullable(message.getContent()), nullable(message.getServiceAddress()), message.getVersion());
+    }
+
+    public static ReviewMessage toMessage(Review api) {
+        return ReviewMessage.newBuilder()
+                .setProductId(api.getProductId())
+                .setReviewId(api.getReviewId())
+                .setAuthor(text(api.getAuthor()))
+                .setSubject(text(api.getSubject()))
+                .setContent(text(api.getContent()))
+                .setServiceAddress(text(api.getServiceAddress()))
+                .setVersion(api.getVersion())
+                .build();
+    }
+
+    public static Review fromMessage(ReviewMessage message) {
+        return new Review(message.getProductId(), message.getReviewId(), nullable(message.getAuthor()),
+                nullable(message.getSubject()), nullable(message.getContent()), nullable(message.getServiceAddress()), message.getVersion());
+    }
+
+    public static RecommendationList toRecommendationList(List<Recommendation> api) {
+        return RecommendationList.newBuilder()
+                .addAllRecommendations(api.stream().map(GrpcMessages::toMessage).collect(Collectors.toList()))
+                .build();
+    }
+
+    public static ReviewList toReviewList(List<Review> api) {
+        return ReviewList.newBuilder()
+                .addAllReviews(api.stream().map(GrpcMessages::toMessage).collect(Collectors.toList()))
+                .build();
+    }
+
+    public static RecommendationBatchResultMessage toMessage(RecommendationBatchResult api) {
+        return RecommendationBatchResultMessage.newBuilder()
+                .addAllCreated(api.getCreated().stream().map(GrpcMessages::toMessage).collect(Collectors.toList()))
+                .addAllDuplicates(api.getDuplicates().stream().map(GrpcMessages::toMessage).collect(Collectors.toList()))
+                .build();
+    }
+
+    public static RecommendationBatchResult fromMessage(RecommendationBatchResultMessage message) {
+        return new RecommendationBatchResult(
+                message.getCreatedList().stream().map(GrpcMessages::fromMessage).collect(Collectors.toList()),
+                message.getDuplicatesList().stream().map(GrpcMessages::fromMessage).collect(Collectors.toList()));
+    }
+
+    public static ReviewBatchResultMessage toMessage(ReviewBatchResult api) {
+        return ReviewBatchResultMessage.newBuilder()
+                .addAllCreated(api.getCreated().stream().map(GrpcMessages::toMessage).collect(Collectors.toList()))
+                .addAllDuplicates(api.getDuplicates().stream().map(GrpcMessages::toMessage).collect(Collectors.toList()))
+                .build();
+    }
+
+    public static ReviewBatchResult fromMessage(ReviewBatchResultMessage message) {
+        return new ReviewBatchResult(
+                message.getCreatedList().stream().map(GrpcMessages::fromMessage).collect(Collectors.toList()),
+                message.getDuplicatesList().stream().map(GrpcMessages::fromMessage).collect(Collectors.toList()));
+    }
+
+    private static String text(String value) {
+        return (value == null) ? "" : value;
+    }
+
+    private static String nullable(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
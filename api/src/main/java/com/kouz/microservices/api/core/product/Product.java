@@ -14,4 +14,14 @@ public class Product {
     private String name;
     private int weight;
     private String serviceAddress;
+
+    // Optimistic locking version of the stored entity
+    private int version;
+
+    /**
+     * A product that is not stored yet, so without a version.
+     */
+    public Product(int productId, String name, int weight, String serviceAddress) {
+        this(productId, name, weight, serviceAddress, 0);
+    }
 }
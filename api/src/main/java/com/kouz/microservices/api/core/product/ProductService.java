@@ -1,10 +1,18 @@
 package com.kouz.microservices.api.core.product;
 
+import static com.kouz.microservices.api.core.CoreMediaTypes.*;
+
+import java.util.Set;
+
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public interface ProductService {
 
@@ -12,13 +20,27 @@ public interface ProductService {
             value    = "/product",
             consumes = "application/json",
             produces = "application/json")
-    Product createProduct(@RequestBody Product body);
+    Mono<Product> createProduct(@RequestBody Product body);
 
     @GetMapping(
             value = "/product/{productId}",
-            produces = "application/json")
-    Product getProduct(@PathVariable int productId);
+            produces = {"application/json", APPLICATION_SMILE_VALUE})
+    Mono<Product> getProduct(@PathVariable int productId);
+
+    @GetMapping(
+            value = "/product",
+            produces = {"application/json", APPLICATION_SMILE_VALUE})
+    Flux<Product> getProducts(@RequestParam(value = "productIds") Set<Integer> productIds);
+
+    /**
+     * Streams the products with a productId greater than {@code afterProductId}, in productId order, one JSON
+     * document per line.
+     */
+    @GetMapping(
+            value = "/product/export",
+            produces = "application/x-ndjson")
+    Flux<Product> exportProducts(@RequestParam(value = "afterProductId", required = false, defaultValue = "0") int afterProductId);
 
     @DeleteMapping(value = "/product/{productId}")
-    void deleteProduct(@PathVariable int productId);
+    Mono<Void> deleteProduct(@PathVariable int productId);
 }
@@ -16,4 +16,14 @@ public class Recommendation {
     private int rate;
     private String content;
     private String serviceAddress;
+
+    // Optimistic locking version of the stored entity
+    private int version;
+
+    /**
+     * A recommendation that is not stored yet, so without a version.
+     */
+    public Recommendation(int productId, int recommendationId, String author, int rate, String content, String serviceAddress) {
+        this(productId, recommendationId, author, rate, content, serviceAddress, 0);
+    }
 }
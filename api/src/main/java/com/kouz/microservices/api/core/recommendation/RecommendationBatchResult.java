@@ -0,0 +1,18 @@
+package com.kouz.microservices.api.core.recommendation;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@Getter
+public class RecommendationBatchResult {
+    private final List<Recommendation> created;
+    private final List<Recommendation> duplicates;
+
+    protected RecommendationBatchResult() {
+        created = null;
+        duplicates = null;
+    }
+}
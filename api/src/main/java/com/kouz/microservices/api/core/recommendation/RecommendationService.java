@@ -1,6 +1,10 @@
 package com.kouz.microservices.api.core.recommendation;
 
+import static com.kouz.microservices.api.core.CoreMediaTypes.*;
+
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,19 +12,46 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 public interface RecommendationService {
 
     @PostMapping(
         value    = "/recommendation",
         consumes = "application/json",
         produces = "application/json")
-    Recommendation createRecommendation(@RequestBody Recommendation body);
+    Mono<Recommendation> createRecommendation(@RequestBody Recommendation body);
 
+    @PostMapping(
+        value    = "/recommendation/batch",
+        consumes = {"application/json", APPLICATION_SMILE_VALUE},
+        produces = {"application/json", APPLICATION_SMILE_VALUE})
+    Mono<RecommendationBatchResult> createRecommendations(@RequestBody List<Recommendation> body);
+
+    /**
+     * Keyset pagination: returns up to {@code limit} recommendations with a recommendationId greater than
+     * {@code afterRecommendationId}, ordered by recommendationId.
+     */
     @GetMapping(
         value    = "/recommendation",
-        produces = "application/json")
-    List<Recommendation> getRecommendations(@RequestParam(value = "productId") int productId);
+        produces = {"application/json", APPLICATION_SMILE_VALUE})
+    Flux<Recommendation> getRecommendations(
+        @RequestParam(value = "productId") int productId,
+        @RequestParam(value = "afterRecommendationId", required = false, defaultValue = "0") int afterRecommendationId,
+        @RequestParam(value = "limit", required = false, defaultValue = "100") int limit);
 
-    @DeleteMapping(value = "/recommendation")
-    void deleteRecommendations(@RequestParam(value = "productId") int productId);
+    @GetMapping(
+        value    = "/recommendation",
+        params   = "productIds",
+        produces = {"application/json", APPLICATION_SMILE_VALUE})
+    Mono<Map<Integer, List<Recommendation>>> getRecommendationsByProduct(@RequestParam(value = "productIds") Set<Integer> productIds);
+
+    /**
+     * @return the number of deleted recommendations
+     */
+    @DeleteMapping(
+        value    = "/recommendation",
+        produces = "application/json")
+    Mono<Long> deleteRecommendations(@RequestParam(value = "productId") int productId);
 }
@@ -16,4 +16,14 @@ public class Review {
     private String subject;
     private String content;
     private String serviceAddress;
+
+    // Optimistic locking version of the stored entity
+    private int version;
+
+    /**
+     * A review that is not stored yet, so without a version.
+     */
+    public Review(int productId, int reviewId, String author, String subject, String content, String serviceAddress) {
+        this(productId, reviewId, author, subject, content, serviceAddress, 0);
+    }
 }
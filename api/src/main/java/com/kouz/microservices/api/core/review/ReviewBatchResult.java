@@ -0,0 +1,18 @@
+package com.kouz.microservices.api.core.review;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@Getter
+public class ReviewBatchResult {
+    private final List<Review> created;
+    private final List<Review> duplicates;
+
+    protected ReviewBatchResult() {
+        created = null;
+        duplicates = null;
+    }
+}
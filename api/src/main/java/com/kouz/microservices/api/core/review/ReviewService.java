@@ -1,6 +1,10 @@
 package com.kouz.microservices.api.core.review;
 
+import static com.kouz.microservices.api.core.CoreMediaTypes.*;
+
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,19 +12,46 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 public interface ReviewService {
 
     @PostMapping(
             value    = "/review",
             consumes = "application/json",
             produces = "application/json")
-    Review createReview(@RequestBody Review body);
+    Mono<Review> createReview(@RequestBody Review body);
 
+    @PostMapping(
+            value    = "/review/batch",
+            consumes = {"application/json", APPLICATION_SMILE_VALUE},
+            produces = {"application/json", APPLICATION_SMILE_VALUE})
+    Mono<ReviewBatchResult> createReviews(@RequestBody List<Review> body);
+
+    /**
+     * Keyset pagination: returns up to {@code limit} reviews with a reviewId greater than {@code afterReviewId},
+     * ordered by reviewId.
+     */
     @GetMapping(
             value = "/review",
-            produces = "application/json")
-    List<Review> getReviews(@RequestParam(value = "productId") int productId);
+            produces = {"application/json", APPLICATION_SMILE_VALUE})
+    Flux<Review> getReviews(
+            @RequestParam(value = "productId") int productId,
+            @RequestParam(value = "afterReviewId", required = false, defaultValue = "0") int afterReviewId,
+            @RequestParam(value = "limit", required = false, defaultValue = "100") int limit);
 
-    @DeleteMapping(value = "/review")
-    void deleteReviews(@RequestParam(value = "productId") int productId);
+    @GetMapping(
+            value    = "/review",
+            params   = "productIds",
+            produces = {"application/json", APPLICATION_SMILE_VALUE})
+    Mono<Map<Integer, List<Review>>> getReviewsByProduct(@RequestParam(value = "productIds") Set<Integer> productIds);
+
+    /**
+     * @return the number of deleted reviews
+     */
+    @DeleteMapping(
+            value    = "/review",
+            produces = "application/json")
+    Mono<Long> deleteReviews(@RequestParam(value = "productId") int productId);
 }
@@ -0,0 +1,57 @@
+package com.kouz.microservices.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.core.recommendation.recommendation.persistence.RecommendationEntity;
+import com.kouz.microservices.core.review.persistence.ReviewEntity;
+
+/**
+ * Test data shaped like one page of a product aggregate.
+ */
+public final class Fixtures {
+    public static final int PRODUCT_ID = 1;
+    public static final String SERVICE_ADDRESS = "host/127.0.0.1:8080";
+
+    private Fixtures() {
+    }
+
+    public static Product product() {
+        return new Product(PRODUCT_ID, "name " + PRODUCT_ID, PRODUCT_ID, SERVICE_ADDRESS);
+    }
+
+    public static List<Recommendation> recommendations(int size) {
+        List<Recommendation> recommendations = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            recommendations.add(new Recommendation(PRODUCT_ID, i, "author " + i, i % 5, "content " + i, SERVICE_ADDRESS));
+        }
+        return recommendations;
+    }
+
+    public static List<Review> reviews(int size) {
+        List<Review> reviews = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            reviews.add(new Review(PRODUCT_ID, i, "author " + i, "subject " + i, "content " + i, SERVICE_ADDRESS));
+        }
+        return reviews;
+    }
+
+    public static List<RecommendationEntity> recommendationEntities(int size) {
+        List<RecommendationEntity> entities = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            entities.add(new RecommendationEntity(null, 0, PRODUCT_ID, i, "author " + i, i % 5, "content " + i));
+        }
+        return entities;
+    }
+
+    public static List<ReviewEntity> reviewEntities(int size) {
+        List<ReviewEntity> entities = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            entities.add(new ReviewEntity(i, 0, PRODUCT_ID, i, "author " + i, "subject " + i, "content " + i));
+        }
+        return entities;
+    }
+}
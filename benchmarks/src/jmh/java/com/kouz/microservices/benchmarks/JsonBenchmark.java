@@ -0,0 +1,53 @@
+package com.kouz.microservices.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kouz.microservices.api.composite.product.ProductAggregate;
+import com.kouz.microservices.core.composite.product.services.AggregateAssembly;
+
+/**
+ * Jackson round trips of a composite response. Deserialization goes through the protected no-arg constructors
+ * of the immutable summaries and sets their final fields by reflection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonBenchmark {
+
+    @Param({"1", "50"})
+    int size;
+
+    // Configured as the auto-configured ObjectMapper of the services is
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ProductAggregate aggregate;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        aggregate = AggregateAssembly.assemble(Fixtures.product(), Fixtures.recommendations(size), Fixtures.reviews(size));
+        json = mapper.writeValueAsBytes(aggregate);
+    }
+
+    @Benchmark
+    public byte[] serializeAggregate() throws IOException {
+        return mapper.writeValueAsBytes(aggregate);
+    }
+
+    @Benchmark
+    public ProductAggregate deserializeAggregate() throws IOException {
+        return mapper.readValue(json, ProductAggregate.class);
+    }
+}
@@ -0,0 +1,80 @@
+package com.kouz.microservices.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.core.product.persistence.ProductEntity;
+import com.kouz.microservices.core.product.services.ProductMapper;
+import com.kouz.microservices.core.recommendation.recommendation.persistence.RecommendationEntity;
+import com.kouz.microservices.core.recommendation.recommendation.services.RecommendationMapper;
+import com.kouz.microservices.core.review.persistence.ReviewEntity;
+import com.kouz.microservices.core.review.services.ReviewMapper;
+
+/**
+ * The MapStruct mappers between persistence entities and API models, as the core services call them per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+
+    @Param({"1", "50"})
+    int size;
+
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+    private final RecommendationMapper recommendationMapper = Mappers.getMapper(RecommendationMapper.class);
+    private final ReviewMapper reviewMapper = Mappers.getMapper(ReviewMapper.class);
+
+    private ProductEntity productEntity;
+    private Product product;
+    private List<RecommendationEntity> recommendationEntities;
+    private List<Recommendation> recommendations;
+    private List<ReviewEntity> reviewEntities;
+
+    @Setup
+    public void setUp() {
+        productEntity = new ProductEntity(Fixtures.PRODUCT_ID, "name", 1);
+        product = Fixtures.product();
+        recommendationEntities = Fixtures.recommendationEntities(size);
+        recommendations = Fixtures.recommendations(size);
+        reviewEntities = Fixtures.reviewEntities(size);
+    }
+
+    @Benchmark
+    public Product productEntityToApi() {
+        return productMapper.entityToApi(productEntity);
+    }
+
+    @Benchmark
+    public ProductEntity productApiToEntity() {
+        return productMapper.apiToEntity(product);
+    }
+
+    @Benchmark
+    public List<Recommendation> recommendationEntityListToApiList() {
+        return recommendationMapper.entityListToApiList(recommendationEntities);
+    }
+
+    @Benchmark
+    public List<RecommendationEntity> recommendationApiListToEntityList() {
+        return recommendationMapper.apiListToEntityList(recommendations);
+    }
+
+    @Benchmark
+    public List<Review> reviewEntityListToApiList() {
+        return reviewMapper.entityListToApiList(reviewEntities);
+    }
+}
@@ -0,0 +1,28 @@
+package com.kouz.microservices.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.kouz.util.http.ServiceUtil;
+
+/**
+ * The services call {@code getServiceAddress} once per returned element, so its cost scales with page size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ServiceUtilBenchmark {
+
+    private final ServiceUtil serviceUtil = new ServiceUtil("8080");
+
+    @Benchmark
+    public String getServiceAddress() {
+        return serviceUtil.getServiceAddress();
+    }
+}
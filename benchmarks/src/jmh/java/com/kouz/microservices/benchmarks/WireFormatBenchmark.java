@@ -0,0 +1,57 @@
+package com.kouz.microservices.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kouz.microservices.api.core.review.Review;
+
+/**
+ * A page of reviews as the composite receives it from the review service, in JSON and in Smile. The payload sizes
+ * are not a time and are compared in {@code WireFormatSizeTest} instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireFormatBenchmark {
+    private static final TypeReference<List<Review>> REVIEWS = new TypeReference<List<Review>>() {};
+
+    @Param({"json", "smile"})
+    String format;
+
+    @Param({"1", "50"})
+    int size;
+
+    private ObjectMapper mapper;
+    private List<Review> reviews;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = "smile".equals(format) ? Jackson2ObjectMapperBuilder.smile().build() : Jackson2ObjectMapperBuilder.json().build();
+        reviews = Fixtures.reviews(size);
+        payload = mapper.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public byte[] encodeReviews() throws IOException {
+        return mapper.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public List<Review> decodeReviews() throws IOException {
+        return mapper.readValue(payload, REVIEWS);
+    }
+}
@@ -0,0 +1,21 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import java.util.List;
+
+import com.kouz.microservices.api.composite.product.ProductAggregate;
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.review.Review;
+
+/**
+ * Reaches the package-private aggregate assembly of {@link ProductCompositeServiceImpl} from the benchmarks.
+ */
+public final class AggregateAssembly {
+
+    private AggregateAssembly() {
+    }
+
+    public static ProductAggregate assemble(Product product, List<Recommendation> recommendations, List<Review> reviews) {
+        return ProductCompositeServiceImpl.createProductAggregate(product, recommendations, null, reviews, null, product.getServiceAddress());
+    }
+}
@@ -0,0 +1,47 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.kouz.microservices.api.composite.product.ProductAggregate;
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.benchmarks.Fixtures;
+
+/**
+ * {@code createProductAggregate}, which copies every recommendation and review of a page into its summary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AggregateAssemblyBenchmark {
+
+    @Param({"1", "50"})
+    int size;
+
+    private Product product;
+    private List<Recommendation> recommendations;
+    private List<Review> reviews;
+
+    @Setup
+    public void setUp() {
+        product = Fixtures.product();
+        recommendations = Fixtures.recommendations(size);
+        reviews = Fixtures.reviews(size);
+    }
+
+    @Benchmark
+    public ProductAggregate createProductAggregate() {
+        return AggregateAssembly.assemble(product, recommendations, reviews);
+    }
+}
@@ -0,0 +1,91 @@
+package com.kouz.microservices.core.review.config;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A burst of concurrent review requests, each making one blocking JPA call, through the {@code jdbcScheduler} of
+ * each {@code app.jdbc.execution-mode}. Requests arrive on the review service's event loop, as in Reactor Netty:
+ * over {@code http/1.1} the composite's connections spread them over one thread per core, over {@code h2c} they
+ * are streams of a single connection and share its one thread. The JPA call parks for {@code queryMillis} while
+ * holding one of {@code POOL_SIZE} connections, so both modes are bounded by the same connection pool.
+ * <p>
+ * {@code virtual-threads} needs a Java 21 runtime: run with {@code ./gradlew :benchmarks:jmh -PvirtualThreads}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JdbcExecutionModeBenchmark {
+    private static final int POOL_SIZE = 10;
+
+    @Param({JdbcSchedulerConfig.EVENT_LOOP, JdbcSchedulerConfig.VIRTUAL_THREADS})
+    String executionMode;
+
+    @Param({"http/1.1", "h2c"})
+    String clientProtocol;
+
+    @Param({"10", "100"})
+    int requests;
+
+    @Param({"1"})
+    int queryMillis;
+
+    private final Semaphore connections = new Semaphore(POOL_SIZE);
+
+    private JdbcSchedulerConfig config;
+    private Scheduler jdbcScheduler;
+    private Scheduler eventLoop;
+
+    @Setup
+    public void setUp() {
+        config = new JdbcSchedulerConfig();
+        config.executionMode = executionMode;
+        config.maxConcurrency = POOL_SIZE;
+        jdbcScheduler = config.jdbcScheduler();
+        int eventLoopThreads = "h2c".equals(clientProtocol) ? 1 : Runtime.getRuntime().availableProcessors();
+        eventLoop = Schedulers.newParallel("event-loop", eventLoopThreads);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        jdbcScheduler.dispose();
+        config.shutdownVirtualThreads();
+        eventLoop.dispose();
+    }
+
+    @Benchmark
+    public Long burst() {
+        return Flux.range(0, requests)
+                .flatMap(i -> Mono.fromSupplier(this::query)
+                        .subscribeOn(jdbcScheduler)
+                        .subscribeOn(eventLoop), requests)
+                .count()
+                .block();
+    }
+
+    private int query() {
+        connections.acquireUninterruptibly();
+        try {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(queryMillis));
+            return 1;
+        } finally {
+            connections.release();
+        }
+    }
+}
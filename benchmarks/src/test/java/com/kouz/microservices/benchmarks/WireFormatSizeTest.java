@@ -0,0 +1,41 @@
+package com.kouz.microservices.benchmarks;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.kouz.microservices.api.core.review.Review;
+
+/**
+ * Payload sizes of the formats compared in {@code WireFormatBenchmark}, for the same page of reviews.
+ */
+class WireFormatSizeTest {
+
+    @Test
+    void smileIsSmallerThanJson() throws IOException {
+        assertSmaller(reviews(1));
+        assertSmaller(reviews(50));
+    }
+
+    private void assertSmaller(List<Review> reviews) throws IOException {
+        int json = Jackson2ObjectMapperBuilder.json().build().writeValueAsBytes(reviews).length;
+        int smile = Jackson2ObjectMapperBuilder.smile().build().writeValueAsBytes(reviews).length;
+
+        assertThat(smile)
+                .as("bytes of %d reviews as Smile, %d as JSON", reviews.size(), json)
+                .isLessThan(json);
+    }
+
+    private List<Review> reviews(int size) {
+        List<Review> reviews = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            reviews.add(new Review(1, i, "author " + i, "subject " + i, "content " + i, "host/127.0.0.1:8080"));
+        }
+        return reviews;
+    }
+}
@@ -0,0 +1,143 @@
+package com.kouz.microservices.loadtest;
+
+import static java.util.Arrays.*;
+import static org.springframework.http.MediaType.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kouz.microservices.api.composite.product.ProductAggregate;
+import com.kouz.microservices.api.composite.product.RecommendationSummary;
+import com.kouz.microservices.api.composite.product.ReviewSummary;
+import com.kouz.microservices.core.composite.product.ProductCompositeServiceApplication;
+import lombok.extern.slf4j.Slf4j;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Starts the composite service in-process against stub product, recommendation and review backends, drives the
+ * get, create and delete scenarios at an open-model rate and writes the results as JSON.
+ * <p>
+ * Settings are system properties:
+ * <ul>
+ * <li>{@code load.rate} requests per second, {@code load.warmup}, {@code load.duration}</li>
+ * <li>{@code load.max-in-flight}, {@code load.product-ids} the range of ids read, to control cache hits</li>
+ * <li>{@code load.scenarios} a comma separated subset of {@code get,create,delete}</li>
+ * <li>{@code load.output} the results file, {@code build/load-test/results-<epoch second>.json} by default</li>
+ * <li>{@code stub.<service>.*} the behaviour of each backend, see {@link StubProfile}</li>
+ * </ul>
+ */
+@Slf4j
+public class LoadTest {
+    private static final List<String> SERVICES = asList("product", "recommendation", "review");
+
+    public static void main(String[] args) throws IOException {
+        int rate = Settings.integer("load.rate", 200);
+        Duration warmup = Settings.duration("load.warmup", "10s");
+        Duration duration = Settings.duration("load.duration", "30s");
+        int maxInFlight = Settings.integer("load.max-in-flight", 2000);
+        int productIds = Settings.integer("load.product-ids", 100_000);
+        List<String> scenarios = asList(Settings.string("load.scenarios", "get,create,delete").split(","));
+        File output = new File(Settings.string("load.output", "build/load-test/results-" + Instant.now().getEpochSecond() + ".json"));
+
+        ObjectMapper mapper = new ObjectMapper();
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", rate);
+        settings.put("warmup", warmup.toString());
+        settings.put("duration", duration.toString());
+        settings.put("maxInFlight", maxInFlight);
+        settings.put("productIds", productIds);
+
+        List<StubBackend> stubs = new ArrayList<>();
+        List<String> properties = new ArrayList<>();
+        properties.add("server.port=0");
+        properties.add("logging.level.com.kouz=WARN");
+        for (String service : SERVICES) {
+            StubProfile profile = StubProfile.of(service);
+            StubBackend stub = new StubBackend(service, profile, mapper);
+            stubs.add(stub);
+            properties.add("app." + service + "-service.host=localhost");
+            properties.add("app." + service + "-service.port=" + stub.start());
+            settings.put(service, profile);
+        }
+
+        ConfigurableApplicationContext composite = new SpringApplicationBuilder(ProductCompositeServiceApplication.class)
+                .properties(properties.toArray(new String[0]))
+                .run();
+        int port = ((WebServerApplicationContext) composite).getWebServer().getPort();
+
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(maxInFlight)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+
+        OpenLoadGenerator generator = new OpenLoadGenerator(rate, warmup, duration, maxInFlight);
+        List<ScenarioResult> results = new ArrayList<>();
+        try {
+            if (scenarios.contains("get")) {
+                results.add(generator.run("GET /product-composite/{id}", i -> client.get()
+                        .uri("/product-composite/{id}", 1 + ThreadLocalRandom.current().nextInt(productIds))
+                        .accept(APPLICATION_JSON)
+                        .retrieve()
+                        .toBodilessEntity()));
+            }
+            if (scenarios.contains("create")) {
+                results.add(generator.run("POST /product-composite", i -> client.post()
+                        .uri("/product-composite")
+                        .bodyValue(aggregate((int) i + 1))
+                        .retrieve()
+                        .toBodilessEntity()));
+            }
+            if (scenarios.contains("delete")) {
+                results.add(generator.run("DELETE /product-composite/{id}", i -> client.delete()
+                        .uri("/product-composite/{id}", i + 1)
+                        .retrieve()
+                        .toBodilessEntity()));
+            }
+        } finally {
+            connections.disposeLater().block();
+            composite.close();
+            stubs.forEach(StubBackend::stop);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("settings", settings);
+        report.put("results", results);
+
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(output, report);
+        log.info("Results written to {}", output.getAbsolutePath());
+    }
+
+    private static ProductAggregate aggregate(int productId) {
+        return new ProductAggregate(productId, "name " + productId, productId,
+                asList(new RecommendationSummary(1, "author", 1, "content")),
+                asList(new ReviewSummary(1, "author", "subject", "content")),
+                null, null, null);
+    }
+}
@@ -0,0 +1,95 @@
+package com.kouz.microservices.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends requests at a fixed rate whatever the response times, as independent users would (an open model).
+ * <p>
+ * Request {@code i} is due at {@code i / rate} seconds. Its latency is measured from that moment, not from when
+ * it could actually be sent, so a stalled system does not hide its own queueing (coordinated omission). At most
+ * {@code maxInFlight} requests are outstanding; requests beyond that are dropped and reported.
+ */
+@Slf4j
+class OpenLoadGenerator {
+    private static final long MAX_TRACKABLE_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private final int rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int maxInFlight;
+
+    OpenLoadGenerator(int rate, Duration warmup, Duration duration, int maxInFlight) {
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Runs one scenario. {@code request} builds the call for the request with the given sequence number.
+     */
+    ScenarioResult run(String scenario, LongFunction<Mono<?>> request) {
+        long intervalNanos = 1_000_000_000L / rate;
+        long warmupRequests = warmup.getSeconds() * rate;
+        long total = warmupRequests + duration.getSeconds() * rate;
+
+        Histogram latencies = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+        AtomicLong errors = new AtomicLong();
+        AtomicLong dropped = new AtomicLong();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        log.info("Running {}: {} req/s for {} after {} warm-up", scenario, rate, duration, warmup);
+        long start = System.nanoTime();
+
+        Flux.interval(Duration.ofNanos(intervalNanos))
+                .take(total)
+                .flatMap(i -> {
+                    long due = start + (i + 1) * intervalNanos;
+                    boolean measured = i >= warmupRequests;
+
+                    if (inFlight.incrementAndGet() > maxInFlight) {
+                        inFlight.decrementAndGet();
+                        if (measured) dropped.incrementAndGet();
+                        return Mono.empty();
+                    }
+
+                    return request.apply(i)
+                            .doOnError(ex -> {
+                                if (measured) errors.incrementAndGet();
+                            })
+                            .onErrorResume(ex -> Mono.empty())
+                            .doFinally(signal -> {
+                                inFlight.decrementAndGet();
+                                if (measured) latencies.recordValue(Math.min(Math.max(0, System.nanoTime() - due), MAX_TRACKABLE_NANOS));
+                            });
+                }, Integer.MAX_VALUE)
+                .blockLast();
+
+        double measuredSeconds = (System.nanoTime() - start) / 1e9 - warmup.getSeconds();
+        long requests = latencies.getTotalCount();
+
+        ScenarioResult result = new ScenarioResult(scenario, rate, requests, errors.get(), dropped.get(),
+                (requests - errors.get()) / measuredSeconds,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+
+        log.info("{}", result);
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
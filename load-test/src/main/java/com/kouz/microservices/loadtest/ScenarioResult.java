@@ -0,0 +1,21 @@
+package com.kouz.microservices.loadtest;
+
+import lombok.Value;
+
+/**
+ * Outcome of one scenario, measured after warm-up. Latencies are in milliseconds and run from the moment a
+ * request was due to be sent, so time spent queued behind a slow system is included.
+ */
+@Value
+class ScenarioResult {
+    String scenario;
+    int targetRate;
+    long requests;
+    long errors;
+    long dropped;
+    double throughput;
+    double p50Ms;
+    double p99Ms;
+    double p999Ms;
+    double maxMs;
+}
@@ -0,0 +1,35 @@
+package com.kouz.microservices.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Load test settings, read from system properties with defaults that run in about a minute.
+ */
+final class Settings {
+
+    private Settings() {
+    }
+
+    static String string(String key, String defaultValue) {
+        return System.getProperty(key, defaultValue);
+    }
+
+    static int integer(String key, int defaultValue) {
+        return Integer.parseInt(string(key, String.valueOf(defaultValue)));
+    }
+
+    static double decimal(String key, double defaultValue) {
+        return Double.parseDouble(string(key, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Durations in the {@code 250ms}, {@code 30s} or {@code 2m} form used in the services' application.yml.
+     */
+    static Duration duration(String key, String defaultValue) {
+        String value = string(key, defaultValue).trim();
+        if (value.endsWith("ms")) return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        if (value.endsWith("s")) return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        if (value.endsWith("m")) return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+}
@@ -0,0 +1,157 @@
+package com.kouz.microservices.loadtest;
+
+import static com.kouz.microservices.api.core.CoreMediaTypes.*;
+import static java.util.Collections.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.review.Review;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * In-process stand-in for one core service. It answers the calls the composite makes with canned payloads after
+ * a latency drawn from its {@link StubProfile}, and fails some of them with a 500.
+ * <p>
+ * Like the core services, it reads and answers JSON or Smile as the Content-Type and Accept headers ask, so the
+ * composite's {@code app.internal-media-type} applies against the stubs too. Read payloads are serialized once
+ * per format at start, so the stubs spend almost no CPU next to the composite under test.
+ */
+@Slf4j
+class StubBackend {
+    private final String service;
+    private final StubProfile profile;
+    private final Payloads json;
+    private final Payloads smile;
+    private DisposableServer server;
+
+    StubBackend(String service, StubProfile profile, ObjectMapper mapper) throws JsonProcessingException {
+        this.service = service;
+        this.profile = profile;
+
+        List<Object> elements = new ArrayList<>();
+        for (int i = 1; i <= profile.getPayloadSize(); i++) {
+            elements.add(element(i));
+        }
+        this.json = new Payloads("application/json", mapper, element(1), elements);
+        this.smile = new Payloads(APPLICATION_SMILE_VALUE, new ObjectMapper(new SmileFactory()), element(1), elements);
+    }
+
+    private Object element(int id) {
+        switch (service) {
+            case "product":
+                return new Product(id, "name " + id, id, "stub");
+            case "recommendation":
+                return new Recommendation(1, id, "author " + id, id % 5, "content " + id, "stub");
+            case "review":
+                return new Review(1, id, "author " + id, "subject " + id, "content " + id, "stub");
+            default:
+                throw new IllegalArgumentException("Unknown service: " + service);
+        }
+    }
+
+    int start() {
+        // Same protocols as the core services, so the composite upgrades to h2c against the stubs as well
+        server = HttpServer.create()
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .handle(this::handle)
+                .bindNow();
+
+        log.info("Stub {} listening on port {} with {}", service, server.port(), profile);
+        return server.port();
+    }
+
+    void stop() {
+        if (server != null) server.disposeNow();
+    }
+
+    private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+        QueryStringDecoder uri = new QueryStringDecoder(request.uri());
+        boolean error = profile.nextIsError();
+        Payloads in = isSmile(request.requestHeaders().get(HttpHeaderNames.CONTENT_TYPE)) ? smile : json;
+        Payloads out = isSmile(request.requestHeaders().get(HttpHeaderNames.ACCEPT)) ? smile : json;
+
+        Mono<byte[]> body = request.receive().aggregate().asByteArray()
+                .defaultIfEmpty(new byte[0])
+                .map(received -> answer(request.method(), uri, received, in, out));
+
+        return Mono.delay(profile.nextLatency())
+                .then(body)
+                .flatMap(answer -> error
+                        ? response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR).send().then()
+                        : response.header(HttpHeaderNames.CONTENT_TYPE, out.contentType).sendByteArray(Mono.just(answer)).then());
+    }
+
+    private byte[] answer(HttpMethod method, QueryStringDecoder uri, byte[] received, Payloads in, Payloads out) {
+        if (HttpMethod.DELETE.equals(method)) {
+            return "product".equals(service) ? new byte[0] : out.deleted;
+        }
+        if (HttpMethod.POST.equals(method)) {
+            // Creates echo what they were sent, batches wrapped in a batch result without duplicates
+            return echo(uri, received, in, out);
+        }
+        if (uri.parameters().containsKey("productIds")) {
+            return "product".equals(service) ? out.list : out.byProduct;
+        }
+        return "product".equals(service) ? out.single : out.list;
+    }
+
+    private byte[] echo(QueryStringDecoder uri, byte[] received, Payloads in, Payloads out) {
+        try {
+            JsonNode created = in.mapper.readTree(received);
+            if (!uri.path().endsWith("/batch")) return out.mapper.writeValueAsBytes(created);
+
+            ObjectNode result = out.mapper.createObjectNode();
+            result.set("created", created);
+            result.putArray("duplicates");
+            return out.mapper.writeValueAsBytes(result);
+        } catch (IOException ioex) {
+            throw new UncheckedIOException(ioex);
+        }
+    }
+
+    private static boolean isSmile(String mediaTypes) {
+        return mediaTypes != null && mediaTypes.contains(APPLICATION_SMILE_VALUE);
+    }
+
+    /**
+     * The canned answers in one wire format.
+     */
+    private static class Payloads {
+        private final String contentType;
+        private final ObjectMapper mapper;
+        private final byte[] single;
+        private final byte[] list;
+        private final byte[] byProduct;
+        private final byte[] deleted;
+
+        Payloads(String contentType, ObjectMapper mapper, Object single, List<Object> list) throws JsonProcessingException {
+            this.contentType = contentType;
+            this.mapper = mapper;
+            this.single = mapper.writeValueAsBytes(single);
+            this.list = mapper.writeValueAsBytes(list);
+            this.byProduct = mapper.writeValueAsBytes(singletonMap(1, list));
+            this.deleted = mapper.writeValueAsBytes(0L);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.kouz.microservices.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.Value;
+
+/**
+ * How a stub backend behaves: log-normal latency given by its median and p99, the share of requests answered
+ * with a 500, and the number of elements in list responses.
+ * <p>
+ * Read from {@code stub.<service>.latency-median}, {@code .latency-p99}, {@code .error-rate} and
+ * {@code .payload-size}.
+ */
+@Value
+class StubProfile {
+    private static final double Z_99 = 2.326;
+
+    Duration latencyMedian;
+    Duration latencyP99;
+    double errorRate;
+    int payloadSize;
+
+    static StubProfile of(String service) {
+        String prefix = "stub." + service + ".";
+        return new StubProfile(
+                Settings.duration(prefix + "latency-median", "2ms"),
+                Settings.duration(prefix + "latency-p99", "20ms"),
+                Settings.decimal(prefix + "error-rate", 0.0),
+                Settings.integer(prefix + "payload-size", 10));
+    }
+
+    Duration nextLatency() {
+        double median = latencyMedian.toNanos();
+        if (latencyP99.compareTo(latencyMedian) <= 0) return latencyMedian;
+
+        double sigma = Math.log(latencyP99.toNanos() / median) / Z_99;
+        return Duration.ofNanos((long) (median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+    }
+
+    boolean nextIsError() {
+        return ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+}
@@ -0,0 +1,46 @@
+package com.kouz.microservices.core.composite.product.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.core.composite.product.services.ResponseCache;
+import com.kouz.microservices.core.composite.product.services.SerializedAggregateCache;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class CacheConfig {
+    @Value("${app.cache.max-size}")  long     maxSize;
+    @Value("${app.cache.ttl}")       Duration ttl;
+    @Value("${app.cache.stale-ttl}") Duration staleTtl;
+
+    @Value("${app.cache.aggregate-bodies.max-bytes}") DataSize aggregateBodiesMaxBytes;
+    @Value("${app.cache.aggregate-bodies.idle-ttl}")  Duration aggregateBodiesIdleTtl;
+
+    @Bean
+    public ResponseCache<Product> productCache(MeterRegistry registry) {
+        return new ResponseCache<>("product", maxSize, ttl, staleTtl, registry);
+    }
+
+    @Bean
+    public ResponseCache<List<Recommendation>> recommendationCache(MeterRegistry registry) {
+        return new ResponseCache<>("recommendations", maxSize, ttl, staleTtl, registry);
+    }
+
+    @Bean
+    public ResponseCache<List<Review>> reviewCache(MeterRegistry registry) {
+        return new ResponseCache<>("reviews", maxSize, ttl, staleTtl, registry);
+    }
+
+    @Bean
+    public SerializedAggregateCache aggregateBodyCache(MeterRegistry registry) {
+        return new SerializedAggregateCache(aggregateBodiesMaxBytes.toBytes(), aggregateBodiesIdleTtl, registry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.kouz.microservices.core.composite.product.config;
+
+import static java.util.stream.Collectors.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.kouz.microservices.core.composite.product.services.GrpcCoreClient;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+
+/**
+ * gRPC channels towards the core services, only created with {@code app.core-transport: grpc}. Each channel keeps
+ * one HTTP/2 connection to its service, so {@code app.grpc-client.channels-per-service} channels are opened per
+ * service and {@link GrpcCoreClient} spreads the calls over them.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.core-transport", havingValue = "grpc")
+public class GrpcClientConfig {
+    @Value("${app.product-service.host}")                String   productServiceHost;
+    @Value("${app.product-service.grpc-port}")           int      productServiceGrpcPort;
+    @Value("${app.product-service.read-timeout}")        Duration productReadTimeout;
+    @Value("${app.recommendation-service.host}")         String   recommendationServiceHost;
+    @Value("${app.recommendation-service.grpc-port}")    int      recommendationServiceGrpcPort;
+    @Value("${app.recommendation-service.read-timeout}") Duration recommendationReadTimeout;
+    @Value("${app.review-service.host}")                 String   reviewServiceHost;
+    @Value("${app.review-service.grpc-port}")            int      reviewServiceGrpcPort;
+    @Value("${app.review-service.read-timeout}")         Duration reviewReadTimeout;
+    @Value("${app.grpc-client.channels-per-service}")    int      channelsPerService;
+
+    @Bean(destroyMethod = "shutdown")
+    public GrpcCoreClient grpcCoreClient() {
+        return new GrpcCoreClient(
+                channels(productServiceHost, productServiceGrpcPort), productReadTimeout,
+                channels(recommendationServiceHost, recommendationServiceGrpcPort), recommendationReadTimeout,
+                channels(reviewServiceHost, reviewServiceGrpcPort), reviewReadTimeout);
+    }
+
+    private List<ManagedChannel> channels(String host, int port) {
+        return IntStream.range(0, channelsPerService)
+                .mapToObj(i -> ManagedChannelBuilder.forAddress(host, port).usePlaintext().build())
+                .collect(toList());
+    }
+}
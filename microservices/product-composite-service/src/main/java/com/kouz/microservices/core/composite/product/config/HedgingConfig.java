@@ -0,0 +1,32 @@
+package com.kouz.microservices.core.composite.product.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.core.composite.product.services.RequestHedger;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class HedgingConfig {
+    @Value("${app.hedging.enabled}")        boolean  enabled;
+    @Value("${app.hedging.percentile}")     double   percentile;
+    @Value("${app.hedging.min-delay}")      Duration minDelay;
+    @Value("${app.hedging.budget-percent}") int      budgetPercent;
+    @Value("${app.hedging.window}")         int      window;
+
+    @Bean
+    public RequestHedger<List<Recommendation>> recommendationHedger(MeterRegistry registry) {
+        return new RequestHedger<>("recommendation", enabled, percentile, minDelay, budgetPercent, window, registry);
+    }
+
+    @Bean
+    public RequestHedger<List<Review>> reviewHedger(MeterRegistry registry) {
+        return new RequestHedger<>("review", enabled, percentile, minDelay, budgetPercent, window, registry);
+    }
+}
@@ -0,0 +1,80 @@
+package com.kouz.microservices.core.composite.product.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+
+import com.kouz.util.http.DeadlinePropagationFilter;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Pooled keep-alive HTTP client used by the integration towards the core services.
+ * <p>
+ * The Reactor Netty connection pool is sized per downstream host and reports its
+ * utilisation to the actuator metrics endpoint. It only reports gauges, so the time calls wait for a connection is
+ * timed per downstream by {@code DownstreamMetrics}. With HTTP/2 a pooled connection carries many concurrent calls
+ * as streams.
+ */
+@Configuration
+public class HttpClientConfig {
+    private static final String POOL_NAME = "composite-integration";
+
+    @Value("${app.http-client.max-connections-per-host}") int      maxConnectionsPerHost;
+    @Value("${app.http-client.pending-acquire-timeout}")  Duration pendingAcquireTimeout;
+    @Value("${app.http-client.max-idle-time}")            Duration maxIdleTime;
+    @Value("${app.http-client.max-life-time}")            Duration maxLifeTime;
+    @Value("${app.http-client.eviction-interval}")        Duration evictionInterval;
+    @Value("${app.http-client.keep-alive}")               boolean  keepAlive;
+    @Value("${app.http-client.connect-timeout}")          Duration connectTimeout;
+    @Value("${app.http-client.read-timeout}")             Duration readTimeout;
+    @Value("${app.http-client.protocols}")                HttpProtocol[] protocols;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider connectionProvider() {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnectionsPerHost)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictionInterval)
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * Base client on the shared pool, without a read timeout. The integration derives one client per downstream
+     * from it with that downstream's timeouts, and leaves the read timeout off for streamed responses.
+     */
+    @Bean
+    public HttpClient httpClient(ConnectionProvider connectionProvider) {
+        return HttpClient.create(connectionProvider)
+                .keepAlive(keepAlive)
+                .protocol(protocols)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis());
+    }
+
+    /**
+     * Picked up by the auto-configured {@code WebClient.Builder}, so every WebClient built from it
+     * shares the pool. The default read timeout applies to anything built from the builder without its own
+     * connector.
+     */
+    @Bean
+    public ReactorClientHttpConnector clientHttpConnector(HttpClient httpClient) {
+        return new ReactorClientHttpConnector(httpClient.responseTimeout(readTimeout));
+    }
+
+    /**
+     * Passes the remaining deadline of the incoming request on to every downstream call.
+     */
+    @Bean
+    public WebClientCustomizer deadlinePropagation() {
+        return builder -> builder.filter(new DeadlinePropagationFilter());
+    }
+}
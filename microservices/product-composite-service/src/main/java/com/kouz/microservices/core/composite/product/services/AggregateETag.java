@@ -0,0 +1,77 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.util.List;
+
+import org.springframework.util.DigestUtils;
+
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.review.Review;
+
+/**
+ * Strong ETag of a composite aggregate, computed from the core service responses before the aggregate is built.
+ * <p>
+ * It covers exactly what the aggregate shows: the entity versions and fields of the served pages, and the cursors.
+ * The look-ahead row fetched to find the next page only shows as a cursor, so it does not take part. Versions
+ * alone are not enough: they start over when an entity is deleted and created again with the same ids.
+ */
+final class AggregateETag {
+    private static final char SEPARATOR = '\u001f';
+
+    private AggregateETag() {
+    }
+
+    static String of(Product product,
+            List<Recommendation> recommendations, Integer recommendationsCursor,
+            List<Review> reviews, Integer reviewsCursor,
+            String serviceAddress) {
+
+        StringBuilder state = new StringBuilder(256)
+                .append(recommendationsCursor).append(SEPARATOR)
+                .append(reviewsCursor).append(SEPARATOR)
+                .append(serviceAddress).append(SEPARATOR)
+                .append(product.getProductId()).append(SEPARATOR)
+                .append(product.getVersion()).append(SEPARATOR)
+                .append(product.getName()).append(SEPARATOR)
+                .append(product.getWeight()).append(SEPARATOR)
+                .append(product.getServiceAddress()).append(SEPARATOR);
+
+        for (Recommendation r : recommendations) {
+            state.append('r').append(SEPARATOR)
+                    .append(r.getRecommendationId()).append(SEPARATOR)
+                    .append(r.getVersion()).append(SEPARATOR)
+                    .append(r.getAuthor()).append(SEPARATOR)
+                    .append(r.getRate()).append(SEPARATOR)
+                    .append(r.getContent()).append(SEPARATOR)
+                    .append(r.getServiceAddress()).append(SEPARATOR);
+        }
+        for (Review r : reviews) {
+            state.append('v').append(SEPARATOR)
+                    .append(r.getReviewId()).append(SEPARATOR)
+                    .append(r.getVersion()).append(SEPARATOR)
+                    .append(r.getAuthor()).append(SEPARATOR)
+                    .append(r.getSubject()).append(SEPARATOR)
+                    .append(r.getContent()).append(SEPARATOR)
+                    .append(r.getServiceAddress()).append(SEPARATOR);
+        }
+
+        return "\"" + product.getProductId() + "-" + DigestUtils.md5DigestAsHex(state.toString().getBytes(UTF_8)) + "\"";
+    }
+
+    /**
+     * If-None-Match uses the weak comparison: a {@code W/} prefix is ignored and {@code *} matches any aggregate.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,240 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.kouz.util.exceptions.DeadlineExceededException;
+import com.kouz.util.exceptions.InvalidInputException;
+import com.kouz.util.exceptions.NotFoundException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.timeout.ReadTimeoutException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.context.Context;
+
+/**
+ * Latency, size and fallback meters of the calls from the composite to the core services.
+ * <ul>
+ * <li>{@code composite.downstream.requests}: timer per service and method, tagged with outcome and HTTP status</li>
+ * <li>{@code composite.downstream.response.elements}: elements per response, per service and method</li>
+ * <li>{@code composite.downstream.response.size}: response body bytes, per service</li>
+ * <li>{@code composite.downstream.connection.acquire}: time until a call has a connection to write on, per
+ * service</li>
+ * <li>{@code composite.downstream.http.requests}: requests per service and HTTP protocol</li>
+ * <li>{@code composite.downstream.http2.connections} and {@code composite.downstream.http2.streams}: HTTP/2
+ * connections and streams open per service, HTTP/1.1 connections are in the connection pool metrics</li>
+ * <li>{@code composite.aggregates.degraded}: aggregates returned with an empty fallback section</li>
+ * </ul>
+ */
+public class DownstreamMetrics {
+    private final MeterRegistry registry;
+
+    public DownstreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> timed(String service, String method) {
+        return call -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return call
+                    .doOnSuccess(value -> {
+                        stop(sample, service, method, "SUCCESS", "2xx");
+                        elements(service, method).record(elementCount(value));
+                    })
+                    .doOnError(ex -> stop(sample, service, method, outcome(ex), status(ex)))
+                    .doOnCancel(() -> stop(sample, service, method, "CANCELLED", "NONE"));
+        });
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> timedMany(String service, String method) {
+        return call -> Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            AtomicInteger count = new AtomicInteger();
+            return call
+                    .doOnNext(value -> count.incrementAndGet())
+                    .doOnComplete(() -> {
+                        stop(sample, service, method, "SUCCESS", "2xx");
+                        elements(service, method).record(count.get());
+                    })
+                    .doOnError(ex -> stop(sample, service, method, outcome(ex), status(ex)))
+                    .doOnCancel(() -> stop(sample, service, method, "CANCELLED", "NONE"));
+        });
+    }
+
+    /**
+     * Counts the bytes of every response body read through the client, whatever the content length header says.
+     */
+    public ExchangeFilterFunction responseSize(String service) {
+        DistributionSummary size = DistributionSummary.builder("composite.downstream.response.size")
+                .description("Response body size of calls to the core services")
+                .baseUnit("bytes")
+                .tag("service", service)
+                .publishPercentileHistogram()
+                .register(registry);
+
+        return (request, next) -> next.exchange(request)
+                .map(response -> {
+                    AtomicLong bytes = new AtomicLong();
+                    return response.mutate()
+                            .body(body -> body
+                                    .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                                    .doOnComplete(() -> size.record(bytes.get())))
+                            .build();
+                });
+    }
+
+    /**
+     * Marks when an exchange starts, for {@link #acquireTime}. Registered as the last filter, so that it runs right
+     * before the exchange reaches the connector.
+     */
+    public ExchangeFilterFunction acquireStart() {
+        return (request, next) -> Mono.defer(() -> next.exchange(request)
+                .contextWrite(Context.of(AcquireStart.class, new AcquireStart())));
+    }
+
+    /**
+     * Times how long an exchange marked by {@link #acquireStart} waits before its request is written: for a free
+     * pooled connection, for a new connection to be opened, or for an HTTP/2 stream. The connection pool's own
+     * metrics only report gauges, not this wait. Calls that give up waiting, on the pending acquire timeout, are
+     * not timed.
+     */
+    public HttpClient acquireTime(String service, HttpClient client) {
+        Timer acquire = Timer.builder("composite.downstream.connection.acquire")
+                .description("Time calls to the core services wait for a connection")
+                .tag("service", service)
+                .publishPercentileHistogram()
+                .register(registry);
+
+        return client.doOnRequest((request, connection) -> request.currentContextView()
+                .<AcquireStart>getOrEmpty(AcquireStart.class)
+                .ifPresent(start -> acquire.record(System.nanoTime() - start.nanos, TimeUnit.NANOSECONDS)));
+    }
+
+    /**
+     * Tells HTTP/2 streams from HTTP/1.1 exchanges by the channel a request is written on: an HTTP/2 request gets
+     * a child stream channel of the connection.
+     */
+    public HttpClient protocolMetrics(String service, HttpClient client) {
+        Set<Channel> connections = ConcurrentHashMap.newKeySet();
+        AtomicInteger streams = new AtomicInteger();
+
+        Gauge.builder("composite.downstream.http2.connections", connections, Set::size)
+                .description("HTTP/2 connections open to the core services")
+                .tag("service", service)
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("composite.downstream.http2.streams", streams, AtomicInteger::get)
+                .description("HTTP/2 streams open to the core services")
+                .tag("service", service)
+                .strongReference(true)
+                .register(registry);
+
+        Counter http2Requests = protocolCounter(service, "h2c");
+        Counter http11Requests = protocolCounter(service, "http/1.1");
+
+        return client.doOnRequest((request, connection) -> {
+            Channel channel = connection.channel();
+            if (!(channel instanceof Http2StreamChannel)) {
+                http11Requests.increment();
+                return;
+            }
+
+            http2Requests.increment();
+            streams.incrementAndGet();
+            channel.closeFuture().addListener(future -> streams.decrementAndGet());
+
+            Channel parent = channel.parent();
+            if (connections.add(parent)) parent.closeFuture().addListener(future -> connections.remove(parent));
+        });
+    }
+
+    public void degraded(String section, int aggregates) {
+        registry.counter("composite.aggregates.degraded", "section", section).increment(aggregates);
+    }
+
+    private void stop(Timer.Sample sample, String service, String method, String outcome, String status) {
+        sample.stop(Timer.builder("composite.downstream.requests")
+                .description("Calls to the core services")
+                .tag("service", service)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private Counter protocolCounter(String service, String protocol) {
+        return Counter.builder("composite.downstream.http.requests")
+                .description("Requests to the core services per HTTP protocol")
+                .tag("service", service)
+                .tag("protocol", protocol)
+                .register(registry);
+    }
+
+    private DistributionSummary elements(String service, String method) {
+        return DistributionSummary.builder("composite.downstream.response.elements")
+                .description("Elements returned by calls to the core services")
+                .tag("service", service)
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static class AcquireStart {
+        private final long nanos = System.nanoTime();
+    }
+
+    private static int elementCount(Object value) {
+        if (value == null) return 0;
+        if (value instanceof Collection) return ((Collection<?>) value).size();
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).values().stream()
+                    .mapToInt(DownstreamMetrics::elementCount)
+                    .sum();
+        }
+        return 1;
+    }
+
+    private static String outcome(Throwable ex) {
+        if (ex instanceof NotFoundException || ex instanceof InvalidInputException) return "CLIENT_ERROR";
+        if (ex instanceof WebClientResponseException) {
+            int status = ((WebClientResponseException) ex).getRawStatusCode();
+            return (status >= 400 && status < 500) ? "CLIENT_ERROR" : "SERVER_ERROR";
+        }
+        if (ex instanceof CallNotPermittedException) return "REJECTED";
+        if (isTimeout(ex)) return "TIMEOUT";
+        return "ERROR";
+    }
+
+    private static boolean isTimeout(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof ReadTimeoutException || cause instanceof DeadlineExceededException) return true;
+        }
+        return false;
+    }
+
+    private static String status(Throwable ex) {
+        if (ex instanceof NotFoundException) return "404";
+        if (ex instanceof InvalidInputException) return "422";
+        if (ex instanceof WebClientResponseException) return String.valueOf(((WebClientResponseException) ex).getRawStatusCode());
+        return "NONE";
+    }
+}
@@ -0,0 +1,203 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.util.concurrent.TimeUnit.*;
+import static java.util.stream.Collectors.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.kouz.microservices.api.core.grpc.DeleteResult;
+import com.kouz.microservices.api.core.grpc.ExportRequest;
+import com.kouz.microservices.api.core.grpc.GrpcMessages;
+import com.kouz.microservices.api.core.grpc.PageRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdsRequest;
+import com.kouz.microservices.api.core.grpc.ReactorProductServiceGrpc;
+import com.kouz.microservices.api.core.grpc.ReactorRecommendationServiceGrpc;
+import com.kouz.microservices.api.core.grpc.ReactorReviewServiceGrpc;
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.recommendation.RecommendationBatchResult;
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.api.core.review.ReviewBatchResult;
+import com.kouz.util.grpc.GrpcErrors;
+import com.kouz.util.http.Deadline;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.stub.AbstractStub;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Calls the core services over gRPC instead of HTTP, selected with {@code app.core-transport: grpc}.
+ * <p>
+ * Every call gets a gRPC deadline: the read timeout of its service, cut to the remaining {@link Deadline} of the
+ * incoming request when that comes first. Only the streamed export goes without the read timeout, as over HTTP. gRPC
+ * statuses are turned back into the exceptions the HTTP client raises, except a DEADLINE_EXCEEDED while the caller
+ * still had budget: that is a slow backend, left as a status so the circuit breaker counts it. List calls are
+ * server streams: elements arrive as the core service produces them instead of in one response body.
+ * <p>
+ * Each service gets several channels, and so several HTTP/2 connections, and the calls go round-robin over them:
+ * one connection per service would carry every call on a single socket and a single server transport thread.
+ */
+public class GrpcCoreClient {
+    private final List<ManagedChannel> channels = new ArrayList<>();
+    private final AtomicInteger nextChannel = new AtomicInteger();
+
+    private final List<ReactorProductServiceGrpc.ReactorProductServiceStub> productStubs;
+    private final List<ReactorRecommendationServiceGrpc.ReactorRecommendationServiceStub> recommendationStubs;
+    private final List<ReactorReviewServiceGrpc.ReactorReviewServiceStub> reviewStubs;
+
+    private final Duration productTimeout;
+    private final Duration recommendationTimeout;
+    private final Duration reviewTimeout;
+
+    public GrpcCoreClient(
+            List<ManagedChannel> productChannels, Duration productTimeout,
+            List<ManagedChannel> recommendationChannels, Duration recommendationTimeout,
+            List<ManagedChannel> reviewChannels, Duration reviewTimeout) {
+        this.channels.addAll(productChannels);
+        this.channels.addAll(recommendationChannels);
+        this.channels.addAll(reviewChannels);
+
+        this.productStubs = productChannels.stream().map(ReactorProductServiceGrpc::newReactorStub).collect(toList());
+        this.recommendationStubs = recommendationChannels.stream().map(ReactorRecommendationServiceGrpc::newReactorStub).collect(toList());
+        this.reviewStubs = reviewChannels.stream().map(ReactorReviewServiceGrpc::newReactorStub).collect(toList());
+
+        this.productTimeout = productTimeout;
+        this.recommendationTimeout = recommendationTimeout;
+        this.reviewTimeout = reviewTimeout;
+    }
+
+    public Mono<Product> createProduct(Product body) {
+        return call(productStubs, productTimeout, stub -> stub.createProduct(GrpcMessages.toMessage(body)))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Mono<Product> getProduct(int productId) {
+        return call(productStubs, productTimeout, stub -> stub.getProduct(productIdRequest(productId)))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Flux<Product> getProducts(Set<Integer> productIds) {
+        return callMany(productStubs, productTimeout, stub -> stub.getProducts(productIdsRequest(productIds)))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Flux<Product> exportProducts(int afterProductId) {
+        return callMany(productStubs, null, stub -> stub.exportProducts(ExportRequest.newBuilder().setAfterProductId(afterProductId).build()))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Mono<Void> deleteProduct(int productId) {
+        return call(productStubs, productTimeout, stub -> stub.deleteProduct(productIdRequest(productId)))
+                .then();
+    }
+
+    public Mono<Recommendation> createRecommendation(Recommendation body) {
+        return call(recommendationStubs, recommendationTimeout, stub -> stub.createRecommendation(GrpcMessages.toMessage(body)))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Mono<RecommendationBatchResult> createRecommendations(List<Recommendation> body) {
+        return call(recommendationStubs, recommendationTimeout, stub -> stub.createRecommendations(GrpcMessages.toRecommendationList(body)))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Flux<Recommendation> getRecommendations(int productId, int afterRecommendationId, int limit) {
+        return callMany(recommendationStubs, recommendationTimeout, stub -> stub.getRecommendations(pageRequest(productId, afterRecommendationId, limit)))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Mono<Map<Integer, List<Recommendation>>> getRecommendationsByProduct(Set<Integer> productIds) {
+        return callMany(recommendationStubs, recommendationTimeout, stub -> stub.getRecommendationsByProduct(productIdsRequest(productIds)))
+                .map(GrpcMessages::fromMessage)
+                .collect(groupingBy(Recommendation::getProductId));
+    }
+
+    public Mono<Long> deleteRecommendations(int productId) {
+        return call(recommendationStubs, recommendationTimeout, stub -> stub.deleteRecommendations(productIdRequest(productId)))
+                .map(DeleteResult::getDeleted);
+    }
+
+    public Mono<Review> createReview(Review body) {
+        return call(reviewStubs, reviewTimeout, stub -> stub.createReview(GrpcMessages.toMessage(body)))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Mono<ReviewBatchResult> createReviews(List<Review> body) {
+        return call(reviewStubs, reviewTimeout, stub -> stub.createReviews(GrpcMessages.toReviewList(body)))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Flux<Review> getReviews(int productId, int afterReviewId, int limit) {
+        return callMany(reviewStubs, reviewTimeout, stub -> stub.getReviews(pageRequest(productId, afterReviewId, limit)))
+                .map(GrpcMessages::fromMessage);
+    }
+
+    public Mono<Map<Integer, List<Review>>> getReviewsByProduct(Set<Integer> productIds) {
+        return callMany(reviewStubs, reviewTimeout, stub -> stub.getReviewsByProduct(productIdsRequest(productIds)))
+                .map(GrpcMessages::fromMessage)
+                .collect(groupingBy(Review::getProductId));
+    }
+
+    public Mono<Long> deleteReviews(int productId) {
+        return call(reviewStubs, reviewTimeout, stub -> stub.deleteReviews(productIdRequest(productId)))
+                .map(DeleteResult::getDeleted);
+    }
+
+    public void shutdown() {
+        channels.forEach(ManagedChannel::shutdown);
+    }
+
+    private <S extends AbstractStub<S>, T> Mono<T> call(List<S> stubs, Duration timeout, Function<S, Mono<T>> method) {
+        return Mono.deferContextual(context -> method.apply(withDeadline(next(stubs), timeout, context))
+                .onErrorMap(ex -> fromStatus(ex, context)));
+    }
+
+    private <S extends AbstractStub<S>, T> Flux<T> callMany(List<S> stubs, Duration timeout, Function<S, Flux<T>> method) {
+        return Flux.deferContextual(context -> method.apply(withDeadline(next(stubs), timeout, context))
+                .onErrorMap(ex -> fromStatus(ex, context)));
+    }
+
+    private <S> S next(List<S> stubs) {
+        return stubs.get(Math.floorMod(nextChannel.getAndIncrement(), stubs.size()));
+    }
+
+    /**
+     * The earlier of the read timeout and the caller's deadline; a {@code null} timeout leaves only the deadline.
+     */
+    private static <S extends AbstractStub<S>> S withDeadline(S stub, Duration timeout, ContextView context) {
+        Duration limit = Deadline.from(context)
+                .map(Deadline::remaining)
+                .map(remaining -> (timeout == null || remaining.compareTo(timeout) < 0) ? remaining : timeout)
+                .orElse(timeout);
+
+        return (limit == null) ? stub : stub.withDeadlineAfter(Math.max(0, limit.toNanos()), NANOSECONDS);
+    }
+
+    private static Throwable fromStatus(Throwable ex, ContextView context) {
+        boolean callerExpired = Deadline.from(context).map(Deadline::isExpired).orElse(false);
+        if (!callerExpired && Status.fromThrowable(ex).getCode() == Status.Code.DEADLINE_EXCEEDED) return ex;
+
+        return GrpcErrors.fromStatus(ex);
+    }
+
+    private static ProductIdRequest productIdRequest(int productId) {
+        return ProductIdRequest.newBuilder().setProductId(productId).build();
+    }
+
+    private static ProductIdsRequest productIdsRequest(Set<Integer> productIds) {
+        return ProductIdsRequest.newBuilder().addAllProductIds(productIds).build();
+    }
+
+    private static PageRequest pageRequest(int productId, int afterId, int limit) {
+        return PageRequest.newBuilder().setProductId(productId).setAfterId(afterId).setLimit(limit).build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.util.stream.Collectors.*;
+
+import java.util.List;
+
+import org.reactivestreams.Publisher;
+
+import com.kouz.util.exceptions.InvalidInputException;
+import com.kouz.util.exceptions.NotFoundException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Outcome of one part of a composite write, collected so that a partial failure reports every part.
+ */
+class PartResult {
+    private final String part;
+    private final Throwable error;
+
+    private PartResult(String part, Throwable error) {
+        this.part = part;
+        this.error = error;
+    }
+
+    static Mono<PartResult> of(String part, Publisher<?> write) {
+        return Flux.from(write)
+                .then(Mono.fromSupplier(() -> new PartResult(part, null)))
+                .onErrorResume(ex -> Mono.just(new PartResult(part, ex)));
+    }
+
+    /**
+     * Completes if every part succeeded, otherwise fails with the type of the first failure and a
+     * message naming the failed and the succeeded parts.
+     */
+    static Mono<Void> checkAll(String operation, int productId, List<PartResult> results) {
+        List<PartResult> failed = results.stream().filter(PartResult::isFailed).collect(toList());
+        if (failed.isEmpty()) return Mono.empty();
+
+        String message = operation + " failed for productId: " + productId
+                + ", failed: " + failed.stream().map(r -> r.part + " (" + r.error.getMessage() + ")").collect(toList())
+                + ", succeeded: " + results.stream().filter(r -> !r.isFailed()).map(r -> r.part).collect(toList());
+
+        Throwable cause = failed.get(0).error;
+        RuntimeException ex;
+        if (cause instanceof InvalidInputException) {
+            ex = new InvalidInputException(message, cause);
+        } else if (cause instanceof NotFoundException) {
+            ex = new NotFoundException(message, cause);
+        } else {
+            ex = new RuntimeException(message, cause);
+        }
+        failed.stream().skip(1).forEach(r -> ex.addSuppressed(r.error));
+
+        return Mono.error(ex);
+    }
+
+    private boolean isFailed() {
+        return error != null;
+    }
+}
@@ -1,35 +1,84 @@
 package com.kouz.microservices.core.composite.product.services;
 
-import static org.springframework.http.HttpMethod.*;
+import static com.kouz.microservices.api.core.CoreMediaTypes.*;
+import static java.util.Collections.*;
+import static java.util.stream.Collectors.*;
+import static org.springframework.http.MediaType.*;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kouz.microservices.api.core.product.Product;
 import com.kouz.microservices.api.core.product.ProductService;
 import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.recommendation.RecommendationBatchResult;
 import com.kouz.microservices.api.core.recommendation.RecommendationService;
 import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.api.core.review.ReviewBatchResult;
 import com.kouz.microservices.api.core.review.ReviewService;
 import com.kouz.util.exceptions.InvalidInputException;
 import com.kouz.util.exceptions.NotFoundException;
 import com.kouz.util.http.HttpErrorInfo;
+import com.kouz.util.http.ServerTiming;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
 
 @Slf4j
 @Component
 public class ProductCompositeIntegration implements ProductService, RecommendationService, ReviewService {
-    private final RestTemplate restTemplate;
+    private final WebClient productClient;
+    private final WebClient productExportClient;
+    private final WebClient recommendationClient;
+    private final WebClient reviewClient;
     private final ObjectMapper mapper;
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+    private final MediaType internalMediaType;
+
+    private final CircuitBreaker productBreaker;
+    private final CircuitBreaker recommendationBreaker;
+    private final CircuitBreaker reviewBreaker;
+
+    private final ResponseCache<Product> productCache;
+    private final ResponseCache<List<Recommendation>> recommendationCache;
+    private final ResponseCache<List<Review>> reviewCache;
+
+    private final RequestCoalescer<Product> productCalls;
+    private final RequestCoalescer<List<Recommendation>> recommendationCalls;
+    private final RequestCoalescer<List<Review>> reviewCalls;
+
+    private final RequestHedger<List<Recommendation>> recommendationHedger;
+    private final RequestHedger<List<Review>> reviewHedger;
+
+    private final DownstreamMetrics metrics;
+
+    // Null when the core services are called over HTTP, see app.core-transport
+    private final GrpcCoreClient grpc;
+
+    // Limit of the first pages the composite service reads, the only ones cached and coalesced
+    private final int firstPageLimit;
 
     private final String productServiceUrl;
     private final String recommendationServiceUrl;
@@ -37,21 +86,73 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
 
     @Autowired
     public ProductCompositeIntegration(
-            RestTemplate restTemplate,
+            WebClient.Builder webClientBuilder,
+            HttpClient httpClient,
             ObjectMapper mapper,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+
+            ResponseCache<Product> productCache,
+            ResponseCache<List<Recommendation>> recommendationCache,
+            ResponseCache<List<Review>> reviewCache,
+            RequestHedger<List<Recommendation>> recommendationHedger,
+            RequestHedger<List<Review>> reviewHedger,
+            MeterRegistry registry,
+            ObjectProvider<GrpcCoreClient> grpcClient,
+
+            @Value("${app.internal-media-type}") String internalMediaType,
+            @Value("${app.product-composite.page-size}") int pageSize,
+
+            @Value("${app.product-service.host}")            String   productServiceHost,
+            @Value("${app.product-service.port}")            int      productServicePort,
+            @Value("${app.product-service.connect-timeout}") Duration productConnectTimeout,
+            @Value("${app.product-service.read-timeout}")    Duration productReadTimeout,
+            @Value("${app.product-service.protocols}")       HttpProtocol[] productProtocols,
+
+            @Value("${app.recommendation-service.host}")            String   recommendationServiceHost,
+            @Value("${app.recommendation-service.port}")            int      recommendationServicePort,
+            @Value("${app.recommendation-service.connect-timeout}") Duration recommendationConnectTimeout,
+            @Value("${app.recommendation-service.read-timeout}")    Duration recommendationReadTimeout,
+            @Value("${app.recommendation-service.protocols}")       HttpProtocol[] recommendationProtocols,
+
+            @Value("${app.review-service.host}")            String   reviewServiceHost,
+            @Value("${app.review-service.port}")            int      reviewServicePort,
+            @Value("${app.review-service.connect-timeout}") Duration reviewConnectTimeout,
+            @Value("${app.review-service.read-timeout}")    Duration reviewReadTimeout,
+            @Value("${app.review-service.protocols}")       HttpProtocol[] reviewProtocols
+    ) {
 
-            @Value("${app.product-service.host}") String productServiceHost,
-            @Value("${app.product-service.port}") int    productServicePort,
+        this.metrics = new DownstreamMetrics(registry);
 
-            @Value("${app.recommendation-service.host}") String recommendationServiceHost,
-            @Value("${app.recommendation-service.port}") int    recommendationServicePort,
+        HttpClient productHttpClient = downstreamClient(httpClient, metrics, "product", productConnectTimeout, productProtocols);
+        this.productClient = webClient(webClientBuilder, metrics, "product", productHttpClient.responseTimeout(productReadTimeout));
+        // A streamed export pauses whenever its consumer applies backpressure, so it has no read timeout
+        this.productExportClient = webClient(webClientBuilder, metrics, "product", productHttpClient);
+        this.recommendationClient = webClient(webClientBuilder, metrics, "recommendation",
+                downstreamClient(httpClient, metrics, "recommendation", recommendationConnectTimeout, recommendationProtocols).responseTimeout(recommendationReadTimeout));
+        this.reviewClient = webClient(webClientBuilder, metrics, "review",
+                downstreamClient(httpClient, metrics, "review", reviewConnectTimeout, reviewProtocols).responseTimeout(reviewReadTimeout));
+        this.mapper = mapper;
+        this.internalMediaType = MediaType.parseMediaType(internalMediaType);
 
-            @Value("${app.review-service.host}") String reviewServiceHost,
-            @Value("${app.review-service.port}") int    reviewServicePort
-    ) {
+        this.productBreaker = circuitBreakerRegistry.circuitBreaker("product");
+        this.recommendationBreaker = circuitBreakerRegistry.circuitBreaker("recommendation");
+        this.reviewBreaker = circuitBreakerRegistry.circuitBreaker("review");
 
-        this.restTemplate = restTemplate;
-        this.mapper = mapper;
+        this.productCache = productCache;
+        this.recommendationCache = recommendationCache;
+        this.reviewCache = reviewCache;
+
+        this.productCalls = new RequestCoalescer<>("product", registry);
+        this.recommendationCalls = new RequestCoalescer<>("recommendation", registry);
+        this.reviewCalls = new RequestCoalescer<>("review", registry);
+
+        this.recommendationHedger = recommendationHedger;
+        this.reviewHedger = reviewHedger;
+
+        this.grpc = grpcClient.getIfAvailable();
+
+        // One element more than a page, to tell whether a next page exists
+        this.firstPageLimit = pageSize + 1;
 
         productServiceUrl        = "http://" + productServiceHost + ":" + productServicePort + "/product";
         recommendationServiceUrl = "http://" + recommendationServiceHost + ":" + recommendationServicePort + "/recommendation";
@@ -59,149 +160,353 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
     }
 
     @Override
-    public Product createProduct(Product body) {
+    public Mono<Product> createProduct(Product body) {
+        String url = productServiceUrl;
+        log.debug("Will post a new product to URL: {}", url);
+
+        Mono<Product> call = (grpc != null)
+                ? grpc.createProduct(body)
+                : productClient.post().uri(url).bodyValue(body).retrieve()
+                        .bodyToMono(Product.class);
+
+        return call
+                .doOnNext(product -> log.debug("Created a product with id: {}", product.getProductId()))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(productBreaker))
+                .transformDeferred(metrics.timed("product", "createProduct"))
+                .doFinally(signal -> invalidateProduct(body.getProductId()));
+    }
 
-        try {
-            String url = productServiceUrl;
-            log.debug("Will post a new product to URL: {}", url);
+    @Override
+    public Mono<Product> getProduct(int productId) {
+        return productCache.get(productId, () -> productCalls.execute(productId, () -> fetchProduct(productId)));
+    }
 
-            Product product = restTemplate.postForObject(url, body, Product.class);
-            log.debug("Created a product with id: {}", product.getProductId());
+    private Mono<Product> fetchProduct(int productId) {
+        String url = productServiceUrl + "/" + productId;
+        log.debug("Will call the getProduct API on URL: {}", url);
 
-            return product;
+        Mono<Product> call = (grpc != null)
+                ? grpc.getProduct(productId)
+                : productClient.get().uri(url).accept(internalMediaType, APPLICATION_JSON).retrieve()
+                        .bodyToMono(Product.class);
 
-        } catch (HttpClientErrorException ex) {
-            throw handleHttpClientException(ex);
-        }
+        return call
+                .doOnNext(product -> log.debug("Found a product with id: {}", product.getProductId()))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(productBreaker))
+                .transformDeferred(metrics.timed("product", "getProduct"));
     }
 
     @Override
-    public Product getProduct(int productId) {
-
-        try {
-            String url = productServiceUrl + "/" + productId;
-            log.debug("Will call the getProduct API on URL: {}", url);
+    public Flux<Product> getProducts(Set<Integer> productIds) {
+        if (productIds.isEmpty()) return Flux.empty();
 
-            Product product = restTemplate.getForObject(url, Product.class);
-            log.debug("Found a product with id: {}", product.getProductId());
+        String url = productServiceUrl + "?productIds=" + joinProductIds(productIds);
+        log.debug("Will call the getProducts API on URL: {}", url);
 
-            return product;
+        Flux<Product> call = (grpc != null)
+                ? grpc.getProducts(productIds)
+                : productClient.get().uri(url).accept(internalMediaType, APPLICATION_JSON).retrieve()
+                        .bodyToFlux(Product.class);
 
-        } catch (HttpClientErrorException ex) {
-            throw handleHttpClientException(ex);
-        }
+        return call
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(productBreaker))
+                .transformDeferred(metrics.timedMany("product", "getProducts"));
     }
 
     @Override
-    public void deleteProduct(int productId) {
-        try {
-            String url = productServiceUrl + "/" + productId;
-            log.debug("Will call the deleteProduct API on URL: {}", url);
-
-            restTemplate.delete(url);
-
-        } catch (HttpClientErrorException ex) {
-            throw handleHttpClientException(ex);
-        }
+    public Flux<Product> exportProducts(int afterProductId) {
+        String url = productServiceUrl + "/export?afterProductId=" + afterProductId;
+        log.debug("Will call the exportProducts API on URL: {}", url);
+
+        Flux<Product> call = (grpc != null)
+                ? grpc.exportProducts(afterProductId)
+                : productExportClient.get().uri(url).accept(APPLICATION_NDJSON).retrieve()
+                        .bodyToFlux(Product.class);
+
+        return call
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(metrics.timedMany("product", "exportProducts"));
     }
 
     @Override
-    public Recommendation createRecommendation(Recommendation body) {
-
-        try {
-            String url = recommendationServiceUrl;
-            log.debug("Will post a new recommendation to URL: {}", url);
-
-            Recommendation recommendation = restTemplate.postForObject(url, body, Recommendation.class);
-            log.debug("Created a recommendation with id: {}", recommendation.getProductId());
-
-            return recommendation;
-
-        } catch (HttpClientErrorException ex) {
-            throw handleHttpClientException(ex);
-        }
+    public Mono<Void> deleteProduct(int productId) {
+        String url = productServiceUrl + "/" + productId;
+        log.debug("Will call the deleteProduct API on URL: {}", url);
+
+        Mono<Void> call = (grpc != null)
+                ? grpc.deleteProduct(productId)
+                : productClient.delete().uri(url).retrieve()
+                        .bodyToMono(Void.class);
+
+        return call
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(productBreaker))
+                .transformDeferred(metrics.timed("product", "deleteProduct"))
+                .doFinally(signal -> invalidateProduct(productId));
     }
 
     @Override
-    public List<Recommendation> getRecommendations(int productId) {
-
-        try {
-            String url = recommendationServiceUrl + "?productId=" + productId;
-
-            log.debug("Will call the getRecommendations API on URL: {}", url);
-            List<Recommendation> recommendations = restTemplate.exchange(url, GET, null, new ParameterizedTypeReference<List<Recommendation>>() {}).getBody();
-
-            log.debug("Found {} recommendations for a product with id: {}", recommendations.size(), productId);
-            return recommendations;
+    public Mono<Recommendation> createRecommendation(Recommendation body) {
+        String url = recommendationServiceUrl;
+        log.debug("Will post a new recommendation to URL: {}", url);
+
+        Mono<Recommendation> call = (grpc != null)
+                ? grpc.createRecommendation(body)
+                : recommendationClient.post().uri(url).bodyValue(body).retrieve()
+                        .bodyToMono(Recommendation.class);
+
+        return call
+                .doOnNext(recommendation -> log.debug("Created a recommendation with id: {}", recommendation.getProductId()))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(recommendationBreaker))
+                .transformDeferred(metrics.timed("recommendation", "createRecommendation"))
+                .doFinally(signal -> invalidateRecommendations(body.getProductId()));
+    }
 
-        } catch (Exception ex) {
-            log.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
-            return new ArrayList<>();
-        }
+    @Override
+    public Mono<RecommendationBatchResult> createRecommendations(List<Recommendation> body) {
+        String url = recommendationServiceUrl + "/batch";
+        log.debug("Will post {} new recommendations to URL: {}", body.size(), url);
+
+        Mono<RecommendationBatchResult> call = (grpc != null)
+                ? grpc.createRecommendations(body)
+                : recommendationClient.post().uri(url).contentType(internalMediaType).accept(internalMediaType, APPLICATION_JSON).bodyValue(body).retrieve()
+                        .bodyToMono(RecommendationBatchResult.class);
+
+        return call
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(recommendationBreaker))
+                .transformDeferred(metrics.timed("recommendation", "createRecommendations"))
+                .doFinally(signal -> body.stream().map(Recommendation::getProductId).distinct().forEach(this::invalidateRecommendations));
     }
 
+    /**
+     * Only first pages of the composite's own page size are cached and coalesced, since the cache is keyed by
+     * productId alone. Later pages and other limits go straight to the recommendation service. Page reads are
+     * hedged when {@code app.hedging.enabled} is set, see {@link RequestHedger}.
+     */
     @Override
-    public void deleteRecommendations(int productId) {
-        try {
-            String url = recommendationServiceUrl + "?productId=" + productId;
-            log.debug("Will call the deleteRecommendations API on URL: {}", url);
+    public Flux<Recommendation> getRecommendations(int productId, int afterRecommendationId, int limit) {
+        Mono<List<Recommendation>> page = (afterRecommendationId == 0 && limit == firstPageLimit)
+                ? recommendationCache.get(productId, () -> recommendationCalls.execute(productId, () -> fetchRecommendations(productId, 0, limit)))
+                : fetchRecommendations(productId, afterRecommendationId, limit);
+
+        return page
+                .flatMapIterable(recommendations -> recommendations)
+                .onErrorResume(ex -> {
+                    log.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
+                    metrics.degraded("recommendations", 1);
+                    return Flux.empty();
+                });
+    }
 
-            restTemplate.delete(url);
+    private Mono<List<Recommendation>> fetchRecommendations(int productId, int afterRecommendationId, int limit) {
+        String url = recommendationServiceUrl + "?productId=" + productId + "&afterRecommendationId=" + afterRecommendationId + "&limit=" + limit;
+        log.debug("Will call the getRecommendations API on URL: {}", url);
+
+        return recommendationHedger.execute(() -> (grpc != null)
+                        ? grpc.getRecommendations(productId, afterRecommendationId, limit).collectList()
+                        : recommendationClient.get().uri(url).accept(internalMediaType, APPLICATION_JSON).retrieve()
+                                .bodyToFlux(Recommendation.class)
+                                .collectList())
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(recommendationBreaker))
+                .transformDeferred(metrics.timed("recommendation", "getRecommendations"));
+    }
 
-        } catch (HttpClientErrorException ex) {
-            throw handleHttpClientException(ex);
-        }
+    @Override
+    public Mono<Map<Integer, List<Recommendation>>> getRecommendationsByProduct(Set<Integer> productIds) {
+        if (productIds.isEmpty()) return Mono.just(emptyMap());
+
+        String url = recommendationServiceUrl + "?productIds=" + joinProductIds(productIds);
+        log.debug("Will call the getRecommendationsByProduct API on URL: {}", url);
+
+        Mono<Map<Integer, List<Recommendation>>> call = (grpc != null)
+                ? grpc.getRecommendationsByProduct(productIds)
+                : recommendationClient.get().uri(url).accept(internalMediaType, APPLICATION_JSON).retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<Map<Integer, List<Recommendation>>>() {});
+
+        return call
+                .transformDeferred(CircuitBreakerOperator.of(recommendationBreaker))
+                .transformDeferred(metrics.timed("recommendation", "getRecommendationsByProduct"))
+                .onErrorResume(ex -> {
+                    log.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
+                    metrics.degraded("recommendations", productIds.size());
+                    return Mono.just(emptyMap());
+                });
     }
 
     @Override
-    public Review createReview(Review body) {
+    public Mono<Long> deleteRecommendations(int productId) {
+        String url = recommendationServiceUrl + "?productId=" + productId;
+        log.debug("Will call the deleteRecommendations API on URL: {}", url);
+
+        Mono<Long> call = (grpc != null)
+                ? grpc.deleteRecommendations(productId)
+                : recommendationClient.delete().uri(url).retrieve()
+                        .bodyToMono(Long.class);
+
+        return call
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(recommendationBreaker))
+                .transformDeferred(metrics.timed("recommendation", "deleteRecommendations"))
+                .doFinally(signal -> invalidateRecommendations(productId));
+    }
 
-        try {
-            String url = reviewServiceUrl;
-            log.debug("Will post a new review to URL: {}", url);
+    @Override
+    public Mono<Review> createReview(Review body) {
+        String url = reviewServiceUrl;
+        log.debug("Will post a new review to URL: {}", url);
+
+        Mono<Review> call = (grpc != null)
+                ? grpc.createReview(body)
+                : reviewClient.post().uri(url).bodyValue(body).retrieve()
+                        .bodyToMono(Review.class);
+
+        return call
+                .doOnNext(review -> log.debug("Created a review with id: {}", review.getProductId()))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(reviewBreaker))
+                .transformDeferred(metrics.timed("review", "createReview"))
+                .doFinally(signal -> invalidateReviews(body.getProductId()));
+    }
 
-            Review review = restTemplate.postForObject(url, body, Review.class);
-            log.debug("Created a review with id: {}", review.getProductId());
+    @Override
+    public Mono<ReviewBatchResult> createReviews(List<Review> body) {
+        String url = reviewServiceUrl + "/batch";
+        log.debug("Will post {} new reviews to URL: {}", body.size(), url);
+
+        Mono<ReviewBatchResult> call = (grpc != null)
+                ? grpc.createReviews(body)
+                : reviewClient.post().uri(url).contentType(internalMediaType).accept(internalMediaType, APPLICATION_JSON).bodyValue(body).retrieve()
+                        .bodyToMono(ReviewBatchResult.class);
+
+        return call
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(reviewBreaker))
+                .transformDeferred(metrics.timed("review", "createReviews"))
+                .doFinally(signal -> body.stream().map(Review::getProductId).distinct().forEach(this::invalidateReviews));
+    }
 
-            return review;
+    /**
+     * Only first pages of the composite's own page size are cached and coalesced, as for recommendations.
+     */
+    @Override
+    public Flux<Review> getReviews(int productId, int afterReviewId, int limit) {
+        Mono<List<Review>> page = (afterReviewId == 0 && limit == firstPageLimit)
+                ? reviewCache.get(productId, () -> reviewCalls.execute(productId, () -> fetchReviews(productId, 0, limit)))
+                : fetchReviews(productId, afterReviewId, limit);
+
+        return page
+                .flatMapIterable(reviews -> reviews)
+                .onErrorResume(ex -> {
+                    log.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
+                    metrics.degraded("reviews", 1);
+                    return Flux.empty();
+                });
+    }
 
-        } catch (HttpClientErrorException ex) {
-            throw handleHttpClientException(ex);
-        }
+    private Mono<List<Review>> fetchReviews(int productId, int afterReviewId, int limit) {
+        String url = reviewServiceUrl + "?productId=" + productId + "&afterReviewId=" + afterReviewId + "&limit=" + limit;
+        log.debug("Will call the getReviews API on URL: {}", url);
+
+        return reviewHedger.execute(() -> (grpc != null)
+                        ? grpc.getReviews(productId, afterReviewId, limit).collectList()
+                        : reviewClient.get().uri(url).accept(internalMediaType, APPLICATION_JSON).retrieve()
+                                .bodyToFlux(Review.class)
+                                .collectList())
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(reviewBreaker))
+                .transformDeferred(metrics.timed("review", "getReviews"));
     }
 
     @Override
-    public List<Review> getReviews(int productId) {
+    public Mono<Map<Integer, List<Review>>> getReviewsByProduct(Set<Integer> productIds) {
+        if (productIds.isEmpty()) return Mono.just(emptyMap());
+
+        String url = reviewServiceUrl + "?productIds=" + joinProductIds(productIds);
+        log.debug("Will call the getReviewsByProduct API on URL: {}", url);
+
+        Mono<Map<Integer, List<Review>>> call = (grpc != null)
+                ? grpc.getReviewsByProduct(productIds)
+                : reviewClient.get().uri(url).accept(internalMediaType, APPLICATION_JSON).retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<Map<Integer, List<Review>>>() {});
+
+        return call
+                .transformDeferred(CircuitBreakerOperator.of(reviewBreaker))
+                .transformDeferred(metrics.timed("review", "getReviewsByProduct"))
+                .onErrorResume(ex -> {
+                    log.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
+                    metrics.degraded("reviews", productIds.size());
+                    return Mono.just(emptyMap());
+                });
+    }
 
-        try {
-            String url = reviewServiceUrl + "?productId=" + productId;
+    @Override
+    public Mono<Long> deleteReviews(int productId) {
+        String url = reviewServiceUrl + "?productId=" + productId;
+        log.debug("Will call the deleteReviews API on URL: {}", url);
+
+        Mono<Long> call = (grpc != null)
+                ? grpc.deleteReviews(productId)
+                : reviewClient.delete().uri(url).retrieve()
+                        .bodyToMono(Long.class);
+
+        return call
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException)
+                .transformDeferred(CircuitBreakerOperator.of(reviewBreaker))
+                .transformDeferred(metrics.timed("review", "deleteReviews"))
+                .doFinally(signal -> invalidateReviews(productId));
+    }
 
-            log.debug("Will call the getReviews API on URL: {}", url);
-            List<Review> reviews = restTemplate.exchange(url, GET, null, new ParameterizedTypeReference<List<Review>>() {}).getBody();
+    /**
+     * After a write, later reads must not see the data from before it: neither from the cache nor by joining a
+     * read that was already running when the write was made.
+     */
+    private void invalidateProduct(int productId) {
+        productCalls.forget(productId);
+        productCache.invalidate(productId);
+    }
 
-            log.debug("Found {} reviews for a product with id: {}", reviews.size(), productId);
-            return reviews;
+    private void invalidateRecommendations(int productId) {
+        recommendationCalls.forget(productId);
+        recommendationCache.invalidate(productId);
+    }
 
-        } catch (Exception ex) {
-            log.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
-            return new ArrayList<>();
-        }
+    private void invalidateReviews(int productId) {
+        reviewCalls.forget(productId);
+        reviewCache.invalidate(productId);
     }
 
-    @Override
-    public void deleteReviews(int productId) {
-        try {
-            String url = reviewServiceUrl + "?productId=" + productId;
-            log.debug("Will call the deleteReviews API on URL: {}", url);
+    /**
+     * Each downstream gets its own connect timeout and HTTP protocols on top of the shared connection pool. With
+     * h2c all concurrent calls to a downstream are streams of the same pooled connection. The read timeout is
+     * left to the caller, since it does not suit streamed responses.
+     */
+    private static HttpClient downstreamClient(HttpClient httpClient, DownstreamMetrics metrics, String service,
+            Duration connectTimeout, HttpProtocol[] protocols) {
+        return metrics.acquireTime(service, metrics.protocolMetrics(service, httpClient
+                .protocol(protocols)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())));
+    }
 
-            restTemplate.delete(url);
+    private static WebClient webClient(WebClient.Builder builder, DownstreamMetrics metrics, String service, HttpClient downstreamClient) {
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(downstreamClient))
+                .filter(metrics.responseSize(service))
+                .filter(ServerTiming.forward(service))
+                .filter(metrics.acquireStart())
+                .build();
+    }
 
-        } catch (HttpClientErrorException ex) {
-            throw handleHttpClientException(ex);
-        }
+    private String joinProductIds(Set<Integer> productIds) {
+        return productIds.stream().map(String::valueOf).collect(joining(","));
     }
 
-    private RuntimeException handleHttpClientException(HttpClientErrorException ex) {
+    private RuntimeException handleWebClientException(WebClientResponseException ex) {
         switch (ex.getStatusCode()) {
 
             case NOT_FOUND:
@@ -217,9 +522,11 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }
     }
 
-    private String getErrorMessage(HttpClientErrorException ex) {
+    private String getErrorMessage(WebClientResponseException ex) {
         try {
-            return mapper.readValue(ex.getResponseBodyAsString(), HttpErrorInfo.class).getMessage();
+            // Errors come back in the requested media type, unless the framework rendered them itself as JSON
+            ObjectMapper errorMapper = APPLICATION_SMILE.isCompatibleWith(ex.getHeaders().getContentType()) ? smileMapper : mapper;
+            return errorMapper.readValue(ex.getResponseBodyAsByteArray(), HttpErrorInfo.class).getMessage();
         } catch (IOException ioex) {
             return ex.getMessage();
         }
@@ -1,11 +1,28 @@
 package com.kouz.microservices.core.composite.product.services;
 
+import static com.kouz.microservices.api.core.CoreLimits.*;
+import static java.util.Collections.*;
+import static org.springframework.http.HttpStatus.*;
+import static org.springframework.http.MediaType.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kouz.microservices.api.composite.product.ProductAggregate;
+import com.kouz.microservices.api.composite.product.ProductAggregates;
 import com.kouz.microservices.api.composite.product.ProductCompositeService;
 import com.kouz.microservices.api.composite.product.RecommendationSummary;
 import com.kouz.microservices.api.composite.product.ReviewSummary;
@@ -13,10 +30,14 @@ import com.kouz.microservices.api.composite.product.ServiceAddresses;
 import com.kouz.microservices.api.core.product.Product;
 import com.kouz.microservices.api.core.recommendation.Recommendation;
 import com.kouz.microservices.api.core.review.Review;
+import com.kouz.util.exceptions.InvalidInputException;
 import com.kouz.util.exceptions.NotFoundException;
+import com.kouz.util.http.ServerTiming;
 import com.kouz.util.http.ServiceUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -24,70 +45,226 @@ import lombok.extern.slf4j.Slf4j;
 public class ProductCompositeServiceImpl implements ProductCompositeService {
     private final ServiceUtil serviceUtil;
     private final ProductCompositeIntegration integration;
+    private final SerializedAggregateCache aggregateBodies;
+    private final ObjectMapper mapper;
 
-    @Override
-    public void createCompositeProduct(ProductAggregate body) {
+    @Value("${app.product-composite.max-batch-size}")
+    private int maxBatchSize;
 
-        try {
+    @Value("${app.product-composite.page-size}")
+    private int pageSize;
 
-            log.debug("createCompositeProduct: creates a new composite entity for productId: {}", body.getProductId());
+    @Value("${app.product-composite.export-batch-size}")
+    private int exportBatchSize;
 
-            Product product = new Product(body.getProductId(), body.getName(), body.getWeight(), null);
-            integration.createProduct(product);
+    /**
+     * Both batch sizes are passed on to the core services unchanged, so neither may exceed the limit they enforce.
+     */
+    @PostConstruct
+    void checkBatchSizes() {
+        if (maxBatchSize > MAX_BATCH_SIZE) throw new IllegalStateException("app.product-composite.max-batch-size " + maxBatchSize + " exceeds the core services' limit of " + MAX_BATCH_SIZE);
+        if (exportBatchSize > MAX_BATCH_SIZE) throw new IllegalStateException("app.product-composite.export-batch-size " + exportBatchSize + " exceeds the core services' limit of " + MAX_BATCH_SIZE);
+    }
 
-            if (body.getRecommendations() != null) {
-                body.getRecommendations().forEach(r -> {
-                    Recommendation recommendation = new Recommendation(body.getProductId(), r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent(), null);
-                    integration.createRecommendation(recommendation);
-                });
-            }
+    @Override
+    public Mono<Void> createCompositeProduct(ProductAggregate body) {
+        log.debug("createCompositeProduct: creates a new composite entity for productId: {}", body.getProductId());
 
-            if (body.getReviews() != null) {
-                body.getReviews().forEach(r -> {
-                    Review review = new Review(body.getProductId(), r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(), null);
-                    integration.createReview(review);
-                });
-            }
+        Product product = new Product(body.getProductId(), body.getName(), body.getWeight(), null);
 
-            log.debug("createCompositeProduct: composite entites created for productId: {}", body.getProductId());
+        List<Recommendation> recommendations = (body.getRecommendations() == null) ? emptyList() :
+                body.getRecommendations().stream()
+                        .map(r -> new Recommendation(body.getProductId(), r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent(), null))
+                        .collect(Collectors.toList());
 
-        } catch (RuntimeException re) {
-            log.warn("createCompositeProduct failed", re);
-            throw re;
-        }
+        List<Review> reviews = (body.getReviews() == null) ? emptyList() :
+                body.getReviews().stream()
+                        .map(r -> new Review(body.getProductId(), r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(), null))
+                        .collect(Collectors.toList());
+
+        return Flux.merge(
+                PartResult.of("product", integration.createProduct(product)),
+                PartResult.of("recommendations", recommendations.isEmpty() ? Mono.empty() : integration.createRecommendations(recommendations)
+                        .flatMap(result -> failOnDuplicates("Recommendation Id", result.getDuplicates(), Recommendation::getProductId, Recommendation::getRecommendationId))),
+                PartResult.of("reviews", reviews.isEmpty() ? Mono.empty() : integration.createReviews(reviews)
+                        .flatMap(result -> failOnDuplicates("Review Id", result.getDuplicates(), Review::getProductId, Review::getReviewId))))
+                .collectList()
+                .flatMap(results -> PartResult.checkAll("createCompositeProduct", body.getProductId(), results))
+                .doOnSuccess(v -> log.debug("createCompositeProduct: composite entites created for productId: {}", body.getProductId()))
+                .doOnError(ex -> log.warn("createCompositeProduct failed: {}", ex.toString()));
     }
 
+    /**
+     * The ETag is computed from the core service responses, so a matching {@code If-None-Match} is answered with
+     * 304 before the aggregate is built. Otherwise the serialized aggregate is served from
+     * {@link SerializedAggregateCache}, and only built and serialized on a miss.
+     */
     @Override
-    public ProductAggregate getCompositeProduct(int productId) {
+    public Mono<ResponseEntity<byte[]>> getCompositeProduct(int productId, int recommendationsAfter, int reviewsAfter, String ifNoneMatch) {
         log.debug("getCompositeProduct: lookup a product aggregate for productId: {}", productId);
 
-        Product product = integration.getProduct(productId);
-        if (product == null) throw new NotFoundException("No product found for productId: " + productId);
+        if (recommendationsAfter < 0) throw new InvalidInputException("Invalid recommendationsAfter: " + recommendationsAfter);
+        if (reviewsAfter < 0) throw new InvalidInputException("Invalid reviewsAfter: " + reviewsAfter);
+
+        // One extra row per page tells whether a next page exists
+        return Mono.zip(
+                integration.getProduct(productId)
+                        .switchIfEmpty(Mono.error(() -> new NotFoundException("No product found for productId: " + productId)))
+                        .transformDeferred(ServerTiming.timed("product")),
+                integration.getRecommendations(productId, recommendationsAfter, pageSize + 1).collectList()
+                        .transformDeferred(ServerTiming.timed("recommendation")),
+                integration.getReviews(productId, reviewsAfter, pageSize + 1).collectList()
+                        .transformDeferred(ServerTiming.timed("review")))
+                .doOnNext(values -> log.debug("getCompositeProduct: aggregate entity found for productId: {}", productId))
+                .flatMap(values -> Mono.deferContextual(context -> {
+                    Product product = values.getT1();
+                    List<Recommendation> recommendations = values.getT2();
+                    List<Review> reviews = values.getT3();
+                    String serviceAddress = serviceUtil.getServiceAddress();
+
+                    Integer recommendationsCursor = hasNextPage(recommendations) ? recommendations.get(pageSize - 1).getRecommendationId() : null;
+                    Integer reviewsCursor = hasNextPage(reviews) ? reviews.get(pageSize - 1).getReviewId() : null;
+                    List<Recommendation> recommendationsPage = firstPage(recommendations);
+                    List<Review> reviewsPage = firstPage(reviews);
+
+                    String etag = ServerTiming.measure(context, "assembly", () ->
+                            AggregateETag.of(product, recommendationsPage, recommendationsCursor, reviewsPage, reviewsCursor, serviceAddress));
+                    if (AggregateETag.matches(ifNoneMatch, etag)) {
+                        log.debug("getCompositeProduct: aggregate not modified for productId: {}", productId);
+                        return Mono.just(ResponseEntity.status(NOT_MODIFIED).eTag(etag).<byte[]>build());
+                    }
 
-        List<Recommendation> recommendations = integration.getRecommendations(productId);
+                    // Timed apart, so that serialization reports the encoding rather than the copy of a ready body
+                    byte[] body = aggregateBodies.get(etag, () -> {
+                        ProductAggregate aggregate = ServerTiming.measure(context, "assembly", () -> createProductAggregate(product,
+                                recommendationsPage, recommendationsCursor,
+                                reviewsPage, reviewsCursor,
+                                serviceAddress));
+                        return ServerTiming.measure(context, "serialization", () -> serialize(aggregate));
+                    });
+                    return Mono.just(ResponseEntity.ok().eTag(etag).contentType(APPLICATION_JSON).body(body));
+                }));
+    }
+
+    @Override
+    public Mono<ProductAggregates> getCompositeProducts(List<Integer> productIds) {
+        log.debug("getCompositeProducts: lookup product aggregates for {} productIds", productIds.size());
 
-        List<Review> reviews = integration.getReviews(productId);
+        if (productIds.size() > maxBatchSize) throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + maxBatchSize);
 
-        log.debug("getCompositeProduct: aggregate entity found for productId: {}", productId);
+        Set<Integer> validIds = productIds.stream()
+                .filter(productId -> productId > 0)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
 
-        return createProductAggregate(product, recommendations, reviews, serviceUtil.getServiceAddress());
+        return Mono.zip(
+                integration.getProducts(validIds).collectMap(Product::getProductId),
+                integration.getRecommendationsByProduct(validIds),
+                integration.getReviewsByProduct(validIds))
+                .map(values -> createProductAggregates(productIds, values.getT1(), values.getT2(), values.getT3(), serviceUtil.getServiceAddress()));
     }
 
+    /**
+     * Products stream from the product service's cursor and are joined with their recommendations and reviews
+     * {@code exportBatchSize} at a time. Batches are processed one after the other and only when the client asks
+     * for more, so memory stays bounded by one batch whatever the catalog size.
+     */
     @Override
-    public void deleteCompositeProduct(int productId) {
+    public Flux<ProductAggregate> exportCompositeProducts(int afterProductId) {
+        log.debug("exportCompositeProducts: export product aggregates after productId: {}", afterProductId);
+
+        if (afterProductId < 0) throw new InvalidInputException("Invalid afterProductId: " + afterProductId);
+
+        String serviceAddress = serviceUtil.getServiceAddress();
+        return integration.exportProducts(afterProductId)
+                .buffer(exportBatchSize)
+                .concatMap(products -> joinBatch(products, serviceAddress), 1);
+    }
+
+    private Flux<ProductAggregate> joinBatch(List<Product> products, String serviceAddress) {
+        Set<Integer> productIds = products.stream()
+                .map(Product::getProductId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
 
+        return Mono.zip(
+                integration.getRecommendationsByProduct(productIds),
+                integration.getReviewsByProduct(productIds))
+                .flatMapIterable(values -> products.stream()
+                        .map(product -> createProductAggregate(product,
+                                values.getT1().getOrDefault(product.getProductId(), emptyList()), null,
+                                values.getT2().getOrDefault(product.getProductId(), emptyList()), null,
+                                serviceAddress))
+                        .collect(Collectors.toList()));
+    }
+
+    @Override
+    public Mono<Void> deleteCompositeProduct(int productId) {
         log.debug("deleteCompositeProduct: Deletes a product aggregate for productId: {}", productId);
 
-        integration.deleteProduct(productId);
+        return Flux.merge(
+                PartResult.of("product", integration.deleteProduct(productId)),
+                PartResult.of("recommendations", integration.deleteRecommendations(productId)),
+                PartResult.of("reviews", integration.deleteReviews(productId)))
+                .collectList()
+                .flatMap(results -> PartResult.checkAll("deleteCompositeProduct", productId, results))
+                .doOnSuccess(v -> log.debug("deleteCompositeProduct: aggregate entities deleted for productId: {}", productId))
+                .doOnError(ex -> log.warn("deleteCompositeProduct failed: {}", ex.toString()));
+    }
+
+    /**
+     * The core services store the rest of a batch and report its duplicate rows, the composite fails the part.
+     */
+    private <T> Mono<Void> failOnDuplicates(String idName, List<T> duplicates, ToIntFunction<T> productId, ToIntFunction<T> id) {
+        if (duplicates.isEmpty()) return Mono.empty();
+
+        String keys = duplicates.stream()
+                .map(r -> productId.applyAsInt(r) + "/" + id.applyAsInt(r))
+                .collect(Collectors.joining(", "));
+        return Mono.error(new InvalidInputException("Duplicate key, Product Id/" + idName + ": " + keys));
+    }
+
+    private ProductAggregates createProductAggregates(List<Integer> productIds, Map<Integer, Product> products,
+            Map<Integer, List<Recommendation>> recommendations, Map<Integer, List<Review>> reviews, String serviceAddress) {
 
-        integration.deleteRecommendations(productId);
+        List<ProductAggregate> aggregates = new ArrayList<>();
+        List<Integer> missingProductIds = new ArrayList<>();
 
-        integration.deleteReviews(productId);
+        productIds.stream().distinct().forEach(productId -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                missingProductIds.add(productId);
+                return;
+            }
+            aggregates.add(createProductAggregate(product,
+                    recommendations.getOrDefault(productId, emptyList()), null,
+                    reviews.getOrDefault(productId, emptyList()), null,
+                    serviceAddress));
+        });
+
+        log.debug("getCompositeProducts: {} aggregates found, {} productIds missing", aggregates.size(), missingProductIds.size());
+
+        return new ProductAggregates(aggregates, missingProductIds);
+    }
+
+    private byte[] serialize(ProductAggregate aggregate) {
+        try {
+            return mapper.writeValueAsBytes(aggregate);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize the aggregate of productId: " + aggregate.getProductId(), ex);
+        }
+    }
+
+    private boolean hasNextPage(List<?> page) {
+        return page.size() > pageSize;
+    }
 
-        log.debug("getCompositeProduct: aggregate entities deleted for productId: {}", productId);
+    private <T> List<T> firstPage(List<T> page) {
+        return hasNextPage(page) ? page.subList(0, pageSize) : page;
     }
 
-    private ProductAggregate createProductAggregate(Product product, List<Recommendation> recommendations, List<Review> reviews, String serviceAddress) {
+    static ProductAggregate createProductAggregate(Product product,
+            List<Recommendation> recommendations, Integer recommendationsCursor,
+            List<Review> reviews, Integer reviewsCursor,
+            String serviceAddress) {
 
         // 1. Setup product info
         int productId = product.getProductId();
@@ -112,6 +289,7 @@ public class ProductCompositeServiceImpl implements ProductCompositeService {
         String recommendationAddress = (recommendations != null && recommendations.size() > 0) ? recommendations.get(0).getServiceAddress() : "";
         ServiceAddresses serviceAddresses = new ServiceAddresses(serviceAddress, productAddress, reviewAddress, recommendationAddress);
 
-        return new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries, serviceAddresses);
+        return new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries,
+                recommendationsCursor, reviewsCursor, serviceAddresses);
     }
 }
@@ -0,0 +1,78 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.kouz.util.exceptions.DeadlineExceededException;
+import com.kouz.util.http.Deadline;
+import com.kouz.util.http.ServerTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Shares one in-flight downstream call between concurrent lookups of the same productId.
+ * <p>
+ * Every caller that arrives while the call is running receives its value or error. The call is
+ * forgotten as soon as it terminates, so results are never reused beyond the callers that waited for them.
+ * <p>
+ * The shared call runs without the {@link Deadline} and {@link ServerTiming} of the caller that happened to start
+ * it, since it serves the other callers as well. Each caller instead stops waiting for it at its own deadline.
+ */
+public class RequestCoalescer<V> {
+    private final ConcurrentMap<Integer, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public RequestCoalescer(String service, MeterRegistry registry) {
+        this.coalesced = Counter.builder("composite.requests.coalesced")
+                .description("Lookups served by an already running downstream call")
+                .tag("service", service)
+                .register(registry);
+    }
+
+    public Mono<V> execute(int productId, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            AtomicBoolean leader = new AtomicBoolean();
+            Mono<V> shared = inFlight.computeIfAbsent(productId, key -> {
+                leader.set(true);
+                return share(key, call.get());
+            });
+
+            if (!leader.get()) coalesced.increment();
+            return shared;
+        }).transform(RequestCoalescer::untilCallerDeadline);
+    }
+
+    /**
+     * Makes later lookups of the productId start a new call, for instance after a write. Callers already waiting
+     * on the running call still get its result.
+     */
+    public void forget(int productId) {
+        inFlight.remove(productId);
+    }
+
+    private Mono<V> share(int productId, Mono<V> call) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> shared = call
+                .doFinally(signal -> inFlight.remove(productId, self.get()))
+                .contextWrite(context -> context.delete(Deadline.class).delete(ServerTiming.class))
+                .cache();
+        self.set(shared);
+        return shared;
+    }
+
+    private static <V> Mono<V> untilCallerDeadline(Mono<V> shared) {
+        return Mono.deferContextual(context -> {
+            Optional<Deadline> deadline = Deadline.from(context);
+            if (!deadline.isPresent()) return shared;
+
+            if (deadline.get().isExpired()) return Mono.error(new DeadlineExceededException("Deadline exceeded before a shared call"));
+            return shared.timeout(deadline.get().remaining(),
+                    Mono.error(() -> new DeadlineExceededException("Deadline exceeded while waiting for a shared call")));
+        });
+    }
+}
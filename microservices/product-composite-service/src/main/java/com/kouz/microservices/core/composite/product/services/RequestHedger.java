@@ -0,0 +1,135 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Sends a second, identical downstream call when the first one is slower than {@code percentile} of recent calls,
+ * and answers with whichever call answers first. The other call is cancelled.
+ * <p>
+ * Only use it for idempotent reads. Every call earns {@code budgetPercent} hundredths of a hedge, up to a burst
+ * of {@code MAX_BURST} hedges, so hedges never add more than that share of load to the downstream. No hedge is
+ * sent until enough latencies have been recorded to know the percentile.
+ */
+public class RequestHedger<V> {
+    private static final long TOKEN = 1000;
+    private static final long MAX_BURST = 10 * TOKEN;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long earnPerCall;
+    private final Scheduler scheduler;
+
+    private final long[] latencies;
+    private final int refreshEvery;
+    private int next;
+    private int count;
+    private int sinceRefresh;
+    private volatile long delayNanos = -1;
+
+    private final AtomicLong tokens = new AtomicLong();
+
+    private final Counter sent;
+    private final Counter won;
+    private final Counter denied;
+
+    public RequestHedger(String service, boolean enabled, double percentile, Duration minDelay, int budgetPercent,
+            int window, MeterRegistry registry) {
+        this(service, enabled, percentile, minDelay, budgetPercent, window, registry, Schedulers.parallel());
+    }
+
+    RequestHedger(String service, boolean enabled, double percentile, Duration minDelay, int budgetPercent,
+            int window, MeterRegistry registry, Scheduler scheduler) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.earnPerCall = TOKEN * budgetPercent / 100;
+        this.scheduler = scheduler;
+
+        this.latencies = new long[window];
+        this.refreshEvery = Math.max(1, window / 10);
+
+        this.sent = counter(registry, service, "sent");
+        this.won = counter(registry, service, "won");
+        this.denied = counter(registry, service, "denied");
+    }
+
+    public Mono<V> execute(Supplier<Mono<V>> call) {
+        if (!enabled) return call.get();
+
+        return Mono.defer(() -> {
+            earn();
+            long delay = delayNanos;
+            if (delay < 0) return timed(call);
+
+            // A failed hedge never wins, the first call then answers on its own
+            Mono<V> hedge = Mono.delay(Duration.ofNanos(delay), scheduler)
+                    .flatMap(tick -> {
+                        if (!tryAcquire()) {
+                            denied.increment();
+                            return Mono.never();
+                        }
+                        sent.increment();
+                        return timed(call)
+                                .doOnNext(value -> won.increment())
+                                .onErrorResume(ex -> Mono.never());
+                    });
+
+            return Mono.firstWithSignal(timed(call), hedge);
+        });
+    }
+
+    private Mono<V> timed(Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            long start = scheduler.now(NANOSECONDS);
+            // Cancelled calls record how long they ran, a lower bound that keeps slow calls in the window
+            return call.get().doFinally(signal -> record(scheduler.now(NANOSECONDS) - start));
+        });
+    }
+
+    private synchronized void record(long nanos) {
+        latencies[next] = nanos;
+        next = (next + 1) % latencies.length;
+        if (count < latencies.length) count++;
+
+        if (++sinceRefresh >= refreshEvery) {
+            sinceRefresh = 0;
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            long atPercentile = sorted[Math.max(0, (int) Math.ceil(percentile * count) - 1)];
+            delayNanos = Math.max(atPercentile, minDelayNanos);
+        }
+    }
+
+    private void earn() {
+        tokens.updateAndGet(t -> Math.min(t + earnPerCall, MAX_BURST));
+    }
+
+    private boolean tryAcquire() {
+        long t;
+        do {
+            t = tokens.get();
+            if (t < TOKEN) return false;
+        } while (!tokens.compareAndSet(t, t - TOKEN));
+        return true;
+    }
+
+    private Counter counter(MeterRegistry registry, String service, String result) {
+        return Counter.builder("composite.requests.hedged")
+                .description("Hedged downstream calls")
+                .tag("service", service)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,132 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.kouz.util.exceptions.InvalidInputException;
+import com.kouz.util.exceptions.NotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bounded per-productId cache of downstream responses.
+ * <p>
+ * Entries are served as hits for {@code ttl}. After that they are reloaded, and the last known value is only
+ * served if the reload fails, until the entry is evicted after {@code staleTtl} or by size.
+ * <p>
+ * A load that started before an {@link #invalidate} would put the value from before the write back. So each
+ * invalidation gives its productId a new generation, and a load only stores its value if the generation it
+ * started under is still current.
+ */
+@Slf4j
+public class ResponseCache<V> {
+    private final String name;
+    private final long ttlNanos;
+    private final Cache<Integer, Entry<V>> cache;
+    private final Cache<Integer, Long> generations;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleHits;
+    private final Counter evictions;
+
+    public ResponseCache(String name, long maxSize, Duration ttl, Duration staleTtl, MeterRegistry registry) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(staleTtl.toNanos(), NANOSECONDS)
+                .removalListener((Integer productId, Entry<V> entry, RemovalCause cause) -> onRemoval(cause))
+                .build();
+        // Generations are unique across keys, so a forgotten generation never matches a load: it only skips a put
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(staleTtl.toNanos(), NANOSECONDS)
+                .build();
+
+        this.hits = counter(registry, "composite.cache.gets", "hit");
+        this.misses = counter(registry, "composite.cache.gets", "miss");
+        this.staleHits = counter(registry, "composite.cache.gets", "stale");
+        this.evictions = Counter.builder("composite.cache.evictions")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("composite.cache.size", cache, Cache::estimatedSize)
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    public Mono<V> get(int productId, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            Entry<V> entry = cache.asMap().get(productId);
+            if (entry != null && entry.isFresh(ttlNanos)) {
+                hits.increment();
+                return Mono.just(entry.value);
+            }
+
+            misses.increment();
+            Long generation = generations.getIfPresent(productId);
+            return loader.get()
+                    .doOnNext(value -> putIfCurrent(productId, generation, value))
+                    .onErrorResume(ex -> {
+                        if (entry == null || !isTransient(ex)) return Mono.error(ex);
+
+                        log.warn("Serving last known {} for productId: {} after: {}", name, productId, ex.toString());
+                        staleHits.increment();
+                        return Mono.just(entry.value);
+                    });
+        });
+    }
+
+    public void invalidate(int productId) {
+        generations.asMap().compute(productId, (key, generation) -> {
+            cache.invalidate(key);
+            return invalidations.incrementAndGet();
+        });
+    }
+
+    private void putIfCurrent(int productId, Long loadedGeneration, V value) {
+        generations.asMap().compute(productId, (key, generation) -> {
+            if (Objects.equals(generation, loadedGeneration)) cache.put(key, new Entry<>(value));
+            return generation;
+        });
+    }
+
+    private void onRemoval(RemovalCause cause) {
+        if (cause.wasEvicted()) evictions.increment();
+    }
+
+    private boolean isTransient(Throwable ex) {
+        return !(ex instanceof NotFoundException || ex instanceof InvalidInputException);
+    }
+
+    private Counter counter(MeterRegistry registry, String meterName, String result) {
+        return Counter.builder(meterName)
+                .tag("cache", name)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long loadedAt = System.nanoTime();
+
+        Entry(V value) {
+            this.value = value;
+        }
+
+        boolean isFresh(long ttlNanos) {
+            return System.nanoTime() - loadedAt < ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Serialized JSON of composite aggregates, keyed by {@link AggregateETag}.
+ * <p>
+ * An ETag stands for one content of the aggregate, so entries never need invalidation: a changed aggregate gets a
+ * new key and the old entry is dropped once it is not served for {@code idleTtl}, or by the {@code maxBytes} bound.
+ */
+public class SerializedAggregateCache {
+    private static final String NAME = "aggregate-bodies";
+
+    private final Cache<String, byte[]> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public SerializedAggregateCache(long maxBytes, Duration idleTtl, MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String etag, byte[] body) -> body.length)
+                .expireAfterAccess(idleTtl.toNanos(), NANOSECONDS)
+                .build();
+
+        this.hits = counter(registry, "hit");
+        this.misses = counter(registry, "miss");
+        Gauge.builder("composite.cache.size", cache, Cache::estimatedSize)
+                .tag("cache", NAME)
+                .register(registry);
+    }
+
+    public byte[] get(String etag, Supplier<byte[]> serializer) {
+        byte[] body = cache.getIfPresent(etag);
+        if (body != null) {
+            hits.increment();
+            return body;
+        }
+
+        misses.increment();
+        body = serializer.get();
+        cache.put(etag, body);
+        return body;
+    }
+
+    private Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("composite.cache.gets")
+                .tag("cache", NAME)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,55 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.util.Collections.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.review.Review;
+
+class AggregateETagTest {
+
+    private static final Product PRODUCT = new Product(1, "name", 1, "address", 3);
+
+    @Test
+    void changesWithVersions() {
+        String etag = AggregateETag.of(PRODUCT, emptyList(), null, emptyList(), null, "composite");
+
+        assertThat(AggregateETag.of(new Product(1, "name", 1, "address", 4), emptyList(), null, emptyList(), null, "composite"))
+                .isNotEqualTo(etag);
+        assertThat(AggregateETag.of(PRODUCT, emptyList(), null, singletonList(new Review(1, 1, "a", "s", "c", "address", 0)), null, "composite"))
+                .isNotEqualTo(etag);
+        assertThat(AggregateETag.of(PRODUCT, emptyList(), null, emptyList(), null, "composite"))
+                .isEqualTo(etag);
+    }
+
+    @Test
+    void changesWhenRecreatedWithSameVersion() {
+        assertThat(AggregateETag.of(new Product(1, "new name", 1, "address", 3), emptyList(), null, emptyList(), null, "composite"))
+                .isNotEqualTo(AggregateETag.of(PRODUCT, emptyList(), null, emptyList(), null, "composite"));
+    }
+
+    @Test
+    void changesWithCursors() {
+        List<Review> reviews = singletonList(new Review(1, 1, "a", "s", "c", "address", 0));
+
+        assertThat(AggregateETag.of(PRODUCT, emptyList(), null, reviews, 1, "composite"))
+                .isNotEqualTo(AggregateETag.of(PRODUCT, emptyList(), null, reviews, null, "composite"));
+        assertThat(AggregateETag.of(PRODUCT, emptyList(), 1, emptyList(), null, "composite"))
+                .isNotEqualTo(AggregateETag.of(PRODUCT, emptyList(), null, emptyList(), 1, "composite"));
+    }
+
+    @Test
+    void matchesIfNoneMatchList() {
+        String etag = AggregateETag.of(PRODUCT, emptyList(), null, emptyList(), null, "composite");
+
+        assertThat(AggregateETag.matches(null, etag)).isFalse();
+        assertThat(AggregateETag.matches("\"other\"", etag)).isFalse();
+        assertThat(AggregateETag.matches("\"other\", " + etag, etag)).isTrue();
+        assertThat(AggregateETag.matches("W/" + etag, etag)).isTrue();
+        assertThat(AggregateETag.matches("*", etag)).isTrue();
+    }
+}
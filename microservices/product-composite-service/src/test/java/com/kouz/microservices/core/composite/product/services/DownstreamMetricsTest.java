@@ -0,0 +1,156 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.util.Arrays.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.kouz.util.exceptions.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+class DownstreamMetricsTest {
+
+    private MeterRegistry registry;
+    private DownstreamMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new DownstreamMetrics(registry);
+    }
+
+    @Test
+    void timesSuccessfulCallAndCountsElements() {
+        StepVerifier.create(Mono.just(asList(1, 2, 3)).transformDeferred(metrics.timed("review", "getReviews")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(registry.get("composite.downstream.requests")
+                .tag("service", "review").tag("method", "getReviews").tag("outcome", "SUCCESS")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get("composite.downstream.response.elements")
+                .tag("method", "getReviews")
+                .summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void tagsFailedCallWithOutcomeAndStatus() {
+        StepVerifier.create(Flux.<Integer>error(new NotFoundException("none")).transformDeferred(metrics.timedMany("product", "getProducts")))
+                .verifyError(NotFoundException.class);
+
+        assertThat(registry.get("composite.downstream.requests")
+                .tag("outcome", "CLIENT_ERROR").tag("status", "404")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsDegradedAggregates() {
+        metrics.degraded("reviews", 1);
+        metrics.degraded("reviews", 3);
+
+        assertThat(registry.get("composite.aggregates.degraded").tag("section", "reviews").counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    void timesTheWaitForAPooledConnection() {
+        DisposableServer server = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> response.sendString(Mono.delay(Duration.ofMillis(300)).thenReturn("ok")))
+                .bindNow();
+        ConnectionProvider provider = ConnectionProvider.create("acquire-test", 1);
+
+        try {
+            HttpClient client = metrics.acquireTime("review", HttpClient.create(provider).protocol(HttpProtocol.HTTP11));
+            WebClient webClient = WebClient.builder()
+                    .baseUrl("http://localhost:" + server.port())
+                    .clientConnector(new ReactorClientHttpConnector(client))
+                    .filter(metrics.acquireStart())
+                    .build();
+
+            // One connection: the second call waits for the first to give it back
+            StepVerifier.create(Flux.range(0, 2)
+                            .flatMap(i -> webClient.get().uri("/").retrieve().bodyToMono(String.class)))
+                    .expectNextCount(2)
+                    .verifyComplete();
+
+            Timer acquire = registry.get("composite.downstream.connection.acquire").tag("service", "review").timer();
+            assertThat(acquire.count()).isEqualTo(2);
+            assertThat(acquire.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(200);
+        } finally {
+            provider.disposeLater().block();
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void countsH2cStreamsOfOneConnection() {
+        DisposableServer server = HttpServer.create()
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .handle((request, response) -> response.sendString(Mono.just("ok")))
+                .bindNow();
+        ConnectionProvider provider = ConnectionProvider.create("h2c-test", 1);
+
+        try {
+            HttpClient client = metrics.protocolMetrics("product", HttpClient.create(provider)
+                    .protocol(HttpProtocol.H2C)
+                    .port(server.port()));
+
+            StepVerifier.create(Flux.range(0, 5)
+                            .flatMap(i -> client.get().uri("/").responseContent().aggregate().asString()))
+                    .expectNextCount(5)
+                    .verifyComplete();
+
+            assertThat(registry.get("composite.downstream.http.requests")
+                    .tag("service", "product").tag("protocol", "h2c")
+                    .counter().count()).isEqualTo(5);
+            assertThat(registry.get("composite.downstream.http2.connections")
+                    .tag("service", "product")
+                    .gauge().value()).isEqualTo(1);
+        } finally {
+            provider.disposeLater().block();
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void countsHttp11Calls() {
+        DisposableServer server = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> response.sendString(Mono.just("ok")))
+                .bindNow();
+
+        try {
+            HttpClient client = metrics.protocolMetrics("review", HttpClient.create().port(server.port()));
+
+            StepVerifier.create(client.get().uri("/").responseContent().aggregate().asString())
+                    .expectNext("ok")
+                    .verifyComplete();
+
+            assertThat(registry.get("composite.downstream.http.requests")
+                    .tag("service", "review").tag("protocol", "http/1.1")
+                    .counter().count()).isEqualTo(1);
+            assertThat(registry.get("composite.downstream.http2.streams")
+                    .tag("service", "review")
+                    .gauge().value()).isZero();
+        } finally {
+            server.disposeNow();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.util.Collections.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.kouz.microservices.api.core.grpc.ProductIdRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdsRequest;
+import com.kouz.microservices.api.core.grpc.ProductMessage;
+import com.kouz.microservices.api.core.grpc.ReactorProductServiceGrpc;
+import com.kouz.util.exceptions.DeadlineExceededException;
+import com.kouz.util.exceptions.NotFoundException;
+import com.kouz.util.http.Deadline;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+/**
+ * The integration with {@code app.core-transport: grpc}, against an in-test gRPC product service. The HTTP ports
+ * of the core services point at nothing, so any call that leaves through HTTP fails. Product 408 never answers.
+ */
+@SpringBootTest(webEnvironment = NONE, properties = {
+        "app.core-transport=grpc",
+        "app.grpc-client.channels-per-service=3",
+        "app.product-service.read-timeout=500ms",
+        "app.product-service.port=1",
+        "app.recommendation-service.port=1",
+        "app.review-service.port=1"})
+class GrpcCoreTransportTest {
+
+    private static final Queue<Long> deadlines = new ConcurrentLinkedQueue<>();
+    private static final Set<SocketAddress> clients = ConcurrentHashMap.newKeySet();
+
+    private static final Server server = start(ServerBuilder.forPort(0)
+            .addService(ServerInterceptors.intercept(new StubProductService(), new RecordingInterceptor())));
+
+    @Autowired
+    private ProductCompositeIntegration integration;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @DynamicPropertySource
+    static void coreServices(DynamicPropertyRegistry registry) {
+        registry.add("app.product-service.grpc-port", server::getPort);
+        registry.add("app.recommendation-service.grpc-port", server::getPort);
+        registry.add("app.review-service.grpc-port", server::getPort);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.shutdownNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        deadlines.clear();
+        clients.clear();
+        circuitBreakerRegistry.getAllCircuitBreakers().forEach(CircuitBreaker::reset);
+    }
+
+    @Test
+    void callsTheCoreServicesOverGrpc() {
+
+        StepVerifier.create(integration.getProduct(1))
+                .assertNext(product -> {
+                    assertThat(product.getProductId()).isEqualTo(1);
+                    assertThat(product.getServiceAddress()).isEqualTo("grpc-stub");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void mapsNotFoundStatusToNotFoundException() {
+
+        StepVerifier.create(integration.getProduct(404))
+                .verifyErrorSatisfies(ex -> assertThat(ex)
+                        .isInstanceOf(NotFoundException.class)
+                        .hasMessage("No product found for productId: 404"));
+    }
+
+    @Test
+    void sendsTheRemainingDeadlineAsGrpcDeadline() {
+
+        StepVerifier.create(integration.getProducts(new HashSet<>(Arrays.asList(2, 3)))
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofMillis(300)))))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        assertThat(deadlines.peek()).isBetween(1L, 300L);
+    }
+
+    @Test
+    void sendsTheReadTimeoutAsGrpcDeadlineWithoutACallerDeadline() {
+
+        StepVerifier.create(integration.getProduct(4))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(deadlines.peek()).isBetween(1L, 500L);
+    }
+
+    @Test
+    void failsAHungBackendAtTheReadTimeoutAndCountsIt() {
+        CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker("product");
+
+        // No caller deadline: the coalesced product read runs without one
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(integration.getProduct(408))
+                    .expectErrorSatisfies(ex -> assertThat(Status.fromThrowable(ex).getCode()).isEqualTo(Status.Code.DEADLINE_EXCEEDED))
+                    .verify(Duration.ofSeconds(2));
+        }
+
+        // The hung call did not stay in flight: the second lookup made its own call
+        assertThat(deadlines).hasSize(2);
+        assertThat(breaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotCountAnExpiredCallerBudgetAsFailure() {
+        CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker("product");
+
+        StepVerifier.create(integration.getProducts(singleton(408))
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofMillis(200)))))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(2));
+
+        assertThat(breaker.getMetrics().getNumberOfFailedCalls()).isZero();
+    }
+
+    @Test
+    void spreadsCallsOverTheChannelsOfAService() {
+
+        StepVerifier.create(Flux.range(10, 6).concatMap(productId -> integration.getProduct(productId)))
+                .expectNextCount(6)
+                .verifyComplete();
+
+        assertThat(clients).hasSize(3);
+    }
+
+    private static Server start(ServerBuilder<?> builder) {
+        try {
+            return builder.build().start();
+        } catch (IOException ioex) {
+            throw new UncheckedIOException(ioex);
+        }
+    }
+
+    private static class StubProductService extends ReactorProductServiceGrpc.ProductServiceImplBase {
+
+        @Override
+        public Mono<ProductMessage> getProduct(Mono<ProductIdRequest> request) {
+            return request.flatMap(message -> {
+                if (message.getProductId() == 404) {
+                    return Mono.error(Status.NOT_FOUND.withDescription("No product found for productId: 404").asRuntimeException());
+                }
+                return (message.getProductId() == 408) ? Mono.never() : Mono.just(product(message.getProductId()));
+            });
+        }
+
+        @Override
+        public Flux<ProductMessage> getProducts(Mono<ProductIdsRequest> request) {
+            return request.flatMapMany(message -> message.getProductIdsList().contains(408)
+                    ? Flux.never()
+                    : Flux.fromIterable(message.getProductIdsList()).map(StubProductService::product));
+        }
+
+        private static ProductMessage product(int productId) {
+            return ProductMessage.newBuilder()
+                    .setProductId(productId)
+                    .setName("name")
+                    .setWeight(1)
+                    .setServiceAddress("grpc-stub")
+                    .build();
+        }
+    }
+
+    private static class RecordingInterceptor implements ServerInterceptor {
+
+        @Override
+        public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers, ServerCallHandler<Q, R> next) {
+            clients.add(call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR));
+
+            io.grpc.Deadline deadline = io.grpc.Context.current().getDeadline();
+            if (deadline != null) deadlines.add(deadline.timeRemaining(MILLISECONDS));
+
+            return next.startCall(call, headers);
+        }
+    }
+}
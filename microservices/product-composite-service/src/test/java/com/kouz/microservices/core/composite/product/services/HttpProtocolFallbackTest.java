@@ -0,0 +1,100 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kouz.microservices.api.core.product.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpVersion;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+/**
+ * The integration with the default {@code app.http-client.protocols} against core services that only speak
+ * HTTP/1.1: the h2c upgrade is declined and the calls go on over HTTP/1.1.
+ */
+@SpringBootTest(webEnvironment = NONE)
+class HttpProtocolFallbackTest {
+
+    private static final ObjectMapper json = new ObjectMapper();
+
+    private static final Queue<HttpVersion> versions = new ConcurrentLinkedQueue<>();
+
+    private static final DisposableServer server = HttpServer.create()
+            .port(0)
+            .protocol(HttpProtocol.HTTP11)
+            .handle((request, response) -> {
+                versions.add(request.version());
+                return response
+                        .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                        .sendByteArray(Mono.fromCallable(() -> json.writeValueAsBytes(new Product(1, "name", 1, "stub"))));
+            })
+            .bindNow();
+
+    @Autowired
+    private ProductCompositeIntegration integration;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void coreServices(DynamicPropertyRegistry registry) {
+        registry.add("app.product-service.port", server::port);
+        registry.add("app.recommendation-service.port", server::port);
+        registry.add("app.review-service.port", server::port);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.disposeNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        versions.clear();
+    }
+
+    @Test
+    void fallsBackToHttp11ForGetRequests() {
+        double http11Requests = http11Requests();
+
+        StepVerifier.create(integration.getProduct(1))
+                .assertNext(product -> assertThat(product.getProductId()).isEqualTo(1))
+                .verifyComplete();
+
+        assertThat(versions).containsOnly(HttpVersion.HTTP_1_1);
+        assertThat(http11Requests()).isEqualTo(http11Requests + 1);
+    }
+
+    @Test
+    void fallsBackToHttp11ForRequestsWithABody() {
+
+        StepVerifier.create(integration.createProduct(new Product(1, "name", 1, null)))
+                .assertNext(product -> assertThat(product.getProductId()).isEqualTo(1))
+                .verifyComplete();
+
+        assertThat(versions).containsOnly(HttpVersion.HTTP_1_1);
+    }
+
+    private double http11Requests() {
+        return meterRegistry.get("composite.downstream.http.requests")
+                .tag("service", "product").tag("protocol", "http/1.1")
+                .counter().count();
+    }
+}
@@ -0,0 +1,352 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static com.kouz.microservices.api.core.CoreMediaTypes.*;
+import static java.util.Collections.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kouz.microservices.api.core.product.Product;
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.api.core.review.ReviewBatchResult;
+import com.kouz.util.exceptions.DeadlineExceededException;
+import com.kouz.util.http.Deadline;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.timeout.ReadTimeoutException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+/**
+ * The integration against one stub server that stands in for all three core services. Each test sets the stub's
+ * handler and inspects the requests it recorded.
+ */
+@SpringBootTest(webEnvironment = NONE, properties = {
+        "app.product-composite.page-size=2",
+        "app.product-service.read-timeout=500ms",
+        "app.recommendation-service.read-timeout=500ms",
+        "resilience4j.circuitbreaker.instances.review.sliding-window-size=4",
+        "resilience4j.circuitbreaker.instances.review.minimum-number-of-calls=4",
+        "resilience4j.circuitbreaker.instances.review.wait-duration-in-open-state=200ms",
+        "resilience4j.circuitbreaker.instances.review.permitted-number-of-calls-in-half-open-state=1"})
+class ProductCompositeIntegrationTest {
+
+    private static final ObjectMapper json = new ObjectMapper();
+    private static final ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+
+    private static final Queue<RecordedRequest> requests = new ConcurrentLinkedQueue<>();
+
+    private static volatile BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> stub;
+
+    private static final DisposableServer server = HttpServer.create()
+            .port(0)
+            .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+            .handle((request, response) -> {
+                requests.add(new RecordedRequest(request.uri(), request.requestHeaders().copy()));
+                return stub.apply(request, response);
+            })
+            .bindNow();
+
+    @Autowired
+    private ProductCompositeIntegration integration;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void coreServices(DynamicPropertyRegistry registry) {
+        registry.add("app.product-service.port", server::port);
+        registry.add("app.recommendation-service.port", server::port);
+        registry.add("app.review-service.port", server::port);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.disposeNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        requests.clear();
+        circuitBreakerRegistry.getAllCircuitBreakers().forEach(CircuitBreaker::reset);
+    }
+
+    @Test
+    void cachesOnlyFirstPagesOfThePageSize() {
+        stub = (request, response) -> sendJson(response, singletonList(recommendation(10, 1)));
+
+        // The composite reads pages of app.product-composite.page-size plus one
+        StepVerifier.create(integration.getRecommendations(10, 0, 3)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(integration.getRecommendations(10, 0, 3)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(integration.getRecommendations(10, 0, 100)).expectNextCount(1).verifyComplete();
+
+        assertThat(uris()).containsExactly(
+                "/recommendation?productId=10&afterRecommendationId=0&limit=3",
+                "/recommendation?productId=10&afterRecommendationId=0&limit=100");
+    }
+
+    @Test
+    void timesOutUnaryCallsAfterTheReadTimeout() {
+        stub = (request, response) -> Mono.delay(Duration.ofMillis(1000)).thenEmpty(sendJson(response, product(20)));
+
+        StepVerifier.create(integration.getProduct(20))
+                .verifyErrorSatisfies(ex -> assertThat(ex).hasRootCauseInstanceOf(ReadTimeoutException.class));
+    }
+
+    @Test
+    void doesNotTimeOutPausesOfTheStreamedExport() {
+        stub = (request, response) -> response
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/x-ndjson")
+                .sendString(Flux.just(product(21), product(22))
+                        .delayElements(Duration.ofMillis(1000))
+                        .map(product -> toJson(product) + "\n"));
+
+        StepVerifier.create(integration.exportProducts(20))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void fallsBackToNoRecommendationsOnTimeout() {
+        double degraded = degradedCount("recommendations");
+        stub = (request, response) -> Mono.delay(Duration.ofMillis(1000)).thenEmpty(sendJson(response, singletonList(recommendation(30, 1))));
+
+        StepVerifier.create(integration.getRecommendations(30, 0, 3)).verifyComplete();
+
+        assertThat(degradedCount("recommendations")).isEqualTo(degraded + 1);
+    }
+
+    @Test
+    void fallsBackToNoReviewsOnServerError() {
+        stub = (request, response) -> response.status(500).send();
+
+        StepVerifier.create(integration.getReviews(31, 0, 3)).verifyComplete();
+        StepVerifier.create(integration.getReviewsByProduct(singleton(31)))
+                .assertNext(reviews -> assertThat(reviews).isEmpty())
+                .verifyComplete();
+    }
+
+    @Test
+    void opensBreakerAndClosesItAfterASuccessfulTrialCall() throws InterruptedException {
+        CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker("review");
+        stub = (request, response) -> response.status(500).send();
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(integration.deleteReviews(40)).verifyError(WebClientResponseException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        StepVerifier.create(integration.deleteReviews(40)).verifyError(CallNotPermittedException.class);
+        assertThat(requests).hasSize(4);
+
+        // Moves to half-open by itself once wait-duration-in-open-state has passed
+        Thread.sleep(500);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        stub = (request, response) -> sendJson(response, 1L);
+        StepVerifier.create(integration.deleteReviews(40)).expectNext(1L).verifyComplete();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void keepsBreakerOpenWhenTheTrialCallFails() throws InterruptedException {
+        CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker("review");
+        stub = (request, response) -> response.status(500).send();
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(integration.deleteReviews(41)).verifyError(WebClientResponseException.class);
+        }
+        Thread.sleep(500);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        StepVerifier.create(integration.deleteReviews(41)).verifyError(WebClientResponseException.class);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void forwardsTheRemainingDeadline() {
+        stub = (request, response) -> sendJson(response, singletonList(product(50)));
+
+        StepVerifier.create(integration.getProducts(singleton(50))
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofSeconds(3)))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        long forwarded = Long.parseLong(requests.peek().headers.get(Deadline.HEADER));
+        assertThat(forwarded).isBetween(1L, 3000L);
+    }
+
+    @Test
+    void stopsWaitingForTheDownstreamWhenTheBudgetRunsOut() {
+        stub = (request, response) -> Mono.delay(Duration.ofMillis(1500)).thenEmpty(sendJson(response, 1L));
+
+        long start = System.nanoTime();
+        StepVerifier.create(integration.deleteReviews(51)
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofMillis(300)))))
+                .verifyError(DeadlineExceededException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1500));
+    }
+
+    @Test
+    void doesNotCallTheDownstreamAfterTheDeadline() {
+        stub = (request, response) -> sendJson(response, 1L);
+
+        StepVerifier.create(integration.deleteReviews(52)
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ZERO))))
+                .verifyError(DeadlineExceededException.class);
+
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void appliesTheCallersDeadlineToCoalescedCallsWithoutForwardingIt() {
+        stub = (request, response) -> Mono.delay(Duration.ofMillis(400)).thenEmpty(sendJson(response, product(53)));
+
+        StepVerifier.create(integration.getProduct(53)
+                        .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofMillis(200)))))
+                .verifyError(DeadlineExceededException.class);
+
+        assertThat(requests).hasSize(1);
+        assertThat(requests.peek().headers.contains(Deadline.HEADER)).isFalse();
+    }
+
+    @Test
+    void cancelsTheDownstreamCallWhenTheCallerCancels() throws InterruptedException {
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        stub = (request, response) -> {
+            received.countDown();
+            return response.sendString(Mono.<String>never().doOnCancel(cancelled::countDown));
+        };
+
+        Disposable call = integration.deleteReviews(54).subscribe();
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+
+        call.dispose();
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void exchangesSmileWithTheCoreServices() {
+        stub = (request, response) -> request.receive().aggregate().asByteArray()
+                .map(body -> fromSmile(body, new TypeReference<List<Review>>() {}))
+                .flatMap(reviews -> Mono.from(sendSmile(response, new ReviewBatchResult(reviews, emptyList()))));
+
+        StepVerifier.create(integration.createReviews(singletonList(review(60, 1))))
+                .assertNext(result -> assertThat(result.getCreated())
+                        .extracting(Review::getReviewId)
+                        .containsExactly(1))
+                .verifyComplete();
+
+        HttpHeaders headers = requests.peek().headers;
+        assertThat(headers.get(HttpHeaderNames.CONTENT_TYPE)).isEqualTo(APPLICATION_SMILE_VALUE);
+        assertThat(headers.get(HttpHeaderNames.ACCEPT)).startsWith(APPLICATION_SMILE_VALUE);
+    }
+
+    @Test
+    void fallsBackToJsonFromCoreServicesWithoutSmile() {
+        stub = (request, response) -> sendJson(response, singletonList(product(61)));
+
+        StepVerifier.create(integration.getProducts(singleton(61)))
+                .assertNext(product -> assertThat(product.getProductId()).isEqualTo(61))
+                .verifyComplete();
+    }
+
+    private double degradedCount(String section) {
+        return meterRegistry.counter("composite.aggregates.degraded", "section", section).count();
+    }
+
+    private static Publisher<Void> sendJson(HttpServerResponse response, Object body) {
+        return response
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                .sendByteArray(Mono.fromCallable(() -> json.writeValueAsBytes(body)));
+    }
+
+    private static Publisher<Void> sendSmile(HttpServerResponse response, Object body) {
+        return response
+                .header(HttpHeaderNames.CONTENT_TYPE, APPLICATION_SMILE_VALUE)
+                .sendByteArray(Mono.fromCallable(() -> smile.writeValueAsBytes(body)));
+    }
+
+    private static <T> T fromSmile(byte[] body, TypeReference<T> type) {
+        try {
+            return smile.readValue(body, type);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String toJson(Object body) {
+        try {
+            return json.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Product product(int productId) {
+        return new Product(productId, "name", 1, "stub");
+    }
+
+    private static Recommendation recommendation(int productId, int recommendationId) {
+        return new Recommendation(productId, recommendationId, "author", 1, "content", "stub");
+    }
+
+    private static Review review(int productId, int reviewId) {
+        return new Review(productId, reviewId, "author", "subject", "content", null);
+    }
+
+    private List<String> uris() {
+        return requests.stream().map(r -> r.uri).collect(Collectors.toList());
+    }
+
+    private static class RecordedRequest {
+        private final String uri;
+        private final HttpHeaders headers;
+
+        RecordedRequest(String uri, HttpHeaders headers) {
+            this.uri = uri;
+            this.headers = headers;
+        }
+    }
+}
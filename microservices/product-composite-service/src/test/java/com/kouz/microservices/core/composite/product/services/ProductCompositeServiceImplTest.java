@@ -1,11 +1,17 @@
 package com.kouz.microservices.core.composite.product.services;
 
 import static java.util.Collections.*;
+import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+import static org.springframework.http.HttpHeaders.*;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.*;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,19 +20,31 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import com.kouz.microservices.api.composite.product.ProductAggregate;
+import com.kouz.microservices.api.composite.product.RecommendationSummary;
+import com.kouz.microservices.api.composite.product.ReviewSummary;
 import com.kouz.microservices.api.core.product.Product;
 import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.recommendation.RecommendationBatchResult;
 import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.api.core.review.ReviewBatchResult;
 import com.kouz.util.exceptions.InvalidInputException;
 import com.kouz.util.exceptions.NotFoundException;
+import com.kouz.util.http.ServerTiming;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 @AutoConfigureWebTestClient
-@SpringBootTest(webEnvironment = RANDOM_PORT)
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"app.product-composite.page-size=2", "app.deadline.default-timeout=500ms"})
 class ProductCompositeServiceImplTest {
 
     private static final int PRODUCT_ID_OK = 1;
     private static final int PRODUCT_ID_NOT_FOUND = 2;
     private static final int PRODUCT_ID_INVALID = 3;
+    private static final int PRODUCT_ID_PAGED = 4;
+    private static final int PRODUCT_ID_HUNG = 5;
+    private static final int PRODUCT_ID_LARGE = 6;
 
     @Autowired
     private WebTestClient client;
@@ -37,22 +55,122 @@ class ProductCompositeServiceImplTest {
     @BeforeEach
     void setUp() {
 
+        when(compositeIntegration.getRecommendations(anyInt(), anyInt(), anyInt())).thenReturn(Flux.empty());
+        when(compositeIntegration.getReviews(anyInt(), anyInt(), anyInt())).thenReturn(Flux.empty());
+
         when(compositeIntegration.getProduct(PRODUCT_ID_OK)).
-                thenReturn(new Product(PRODUCT_ID_OK, "name", 1, "mock-address"));
-        when(compositeIntegration.getRecommendations(PRODUCT_ID_OK)).
-                thenReturn(singletonList(
+                thenReturn(Mono.just(new Product(PRODUCT_ID_OK, "name", 1, "mock-address")));
+        when(compositeIntegration.getRecommendations(eq(PRODUCT_ID_OK), anyInt(), anyInt())).
+                thenReturn(Flux.just(
                         new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content",
                                 "mock address")));
-        when(compositeIntegration.getReviews(PRODUCT_ID_OK)).
-                thenReturn(singletonList(
+        when(compositeIntegration.getReviews(eq(PRODUCT_ID_OK), anyInt(), anyInt())).
+                thenReturn(Flux.just(
                         new Review(PRODUCT_ID_OK, 1, "author", "subject", "content",
                                 "mock address")));
 
-        when(compositeIntegration.getProduct(PRODUCT_ID_NOT_FOUND)).thenThrow(
-                new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND));
+        when(compositeIntegration.getProduct(PRODUCT_ID_NOT_FOUND)).thenReturn(
+                Mono.error(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND)));
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_INVALID)).thenReturn(
+                Mono.error(new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID)));
+
+        when(compositeIntegration.getProducts(anySet())).
+                thenReturn(Flux.just(new Product(PRODUCT_ID_OK, "name", 1, "mock-address")));
+        when(compositeIntegration.getRecommendationsByProduct(anySet())).
+                thenReturn(Mono.just(singletonMap(PRODUCT_ID_OK, singletonList(
+                        new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content",
+                                "mock address")))));
+        when(compositeIntegration.getReviewsByProduct(anySet())).
+                thenReturn(Mono.just(singletonMap(PRODUCT_ID_OK, singletonList(
+                        new Review(PRODUCT_ID_OK, 1, "author", "subject", "content",
+                                "mock address")))));
+
+        when(compositeIntegration.createProduct(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(compositeIntegration.createRecommendations(anyList())).thenAnswer(invocation -> Mono.just(new RecommendationBatchResult(invocation.getArgument(0), emptyList())));
+        when(compositeIntegration.createReviews(anyList())).thenAnswer(invocation -> Mono.just(new ReviewBatchResult(invocation.getArgument(0), emptyList())));
+        when(compositeIntegration.deleteProduct(anyInt())).thenReturn(Mono.empty());
+        when(compositeIntegration.deleteRecommendations(anyInt())).thenReturn(Mono.just(1L));
+        when(compositeIntegration.deleteReviews(anyInt())).thenReturn(Mono.just(1L));
+    }
+
+    @Test
+    public void createCompositeProductBatchesReviews() {
+
+        ProductAggregate aggregate = new ProductAggregate(PRODUCT_ID_OK, "name", 1, null,
+                Arrays.asList(
+                        new ReviewSummary(1, "author", "subject", "content"),
+                        new ReviewSummary(2, "author", "subject", "content")),
+                null, null, null);
+
+        client.post()
+                .uri("/product-composite")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(aggregate)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(compositeIntegration).createReviews(argThat(reviews -> reviews.size() == 2));
+        verify(compositeIntegration, never()).createRecommendations(anyList());
+        verify(compositeIntegration, never()).createReview(any());
+    }
+
+    @Test
+    public void createCompositeProductReportsFailedPart() {
+
+        when(compositeIntegration.createReviews(anyList())).thenReturn(
+                Mono.error(new InvalidInputException("Duplicate key")));
+
+        ProductAggregate aggregate = new ProductAggregate(PRODUCT_ID_OK, "name", 1, null,
+                singletonList(new ReviewSummary(1, "author", "subject", "content")), null, null, null);
+
+        client.post()
+                .uri("/product-composite")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(aggregate)
+                .exchange()
+                .expectStatus().isEqualTo(UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("createCompositeProduct failed for productId: " + PRODUCT_ID_OK
+                        + ", failed: [reviews (Duplicate key)], succeeded: [product, recommendations]");
+    }
+
+    @Test
+    public void createCompositeProductReportsDuplicateRecommendations() {
+
+        when(compositeIntegration.createRecommendations(anyList())).thenAnswer(invocation -> {
+            List<Recommendation> recommendations = invocation.getArgument(0);
+            return Mono.just(new RecommendationBatchResult(recommendations.subList(0, 1), recommendations.subList(1, 2)));
+        });
+
+        ProductAggregate aggregate = new ProductAggregate(PRODUCT_ID_OK, "name", 1,
+                Arrays.asList(
+                        new RecommendationSummary(1, "author", 1, "content"),
+                        new RecommendationSummary(2, "author", 1, "content")),
+                null, null, null, null);
+
+        client.post()
+                .uri("/product-composite")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(aggregate)
+                .exchange()
+                .expectStatus().isEqualTo(UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("createCompositeProduct failed for productId: " + PRODUCT_ID_OK
+                        + ", failed: [recommendations (Duplicate key, Product Id/Recommendation Id: " + PRODUCT_ID_OK + "/2)], succeeded: [product, reviews]");
+    }
+
+    @Test
+    public void deleteCompositeProduct() {
+
+        client.delete()
+                .uri("/product-composite/" + PRODUCT_ID_OK)
+                .exchange()
+                .expectStatus().isOk();
 
-        when(compositeIntegration.getProduct(PRODUCT_ID_INVALID)).thenThrow(
-                new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID));
+        verify(compositeIntegration).deleteProduct(PRODUCT_ID_OK);
+        verify(compositeIntegration).deleteRecommendations(PRODUCT_ID_OK);
+        verify(compositeIntegration).deleteReviews(PRODUCT_ID_OK);
     }
 
     @Test
@@ -70,6 +188,212 @@ class ProductCompositeServiceImplTest {
                 .jsonPath("$.reviews.length()").isEqualTo(1);
     }
 
+    @Test
+    public void getProductNotModified() {
+
+        String etag = getProductETag();
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .header(IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isEqualTo(NOT_MODIFIED)
+                .expectHeader().valueEquals(ETAG, etag)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void getProductChangesETagWithVersion() {
+
+        String etag = getProductETag();
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_OK)).
+                thenReturn(Mono.just(new Product(PRODUCT_ID_OK, "name", 1, "mock-address", 1)));
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .header(IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(ETAG, newETag -> assertThat(newETag).isNotEqualTo(etag))
+                .expectBody()
+                .jsonPath("$.productId").isEqualTo(PRODUCT_ID_OK);
+    }
+
+    @Test
+    public void getProductFirstPageWithCursor() {
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_PAGED)).
+                thenReturn(Mono.just(new Product(PRODUCT_ID_PAGED, "name", 1, "mock-address")));
+        when(compositeIntegration.getReviews(PRODUCT_ID_PAGED, 0, 3)).
+                thenReturn(Flux.just(
+                        new Review(PRODUCT_ID_PAGED, 1, "author", "subject", "content", "mock address"),
+                        new Review(PRODUCT_ID_PAGED, 2, "author", "subject", "content", "mock address"),
+                        new Review(PRODUCT_ID_PAGED, 3, "author", "subject", "content", "mock address")));
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_PAGED)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.reviews.length()").isEqualTo(2)
+                .jsonPath("$.reviewsCursor").isEqualTo(2)
+                .jsonPath("$.recommendations.length()").isEqualTo(0)
+                .jsonPath("$.recommendationsCursor").doesNotExist();
+    }
+
+    @Test
+    public void getProductETagIgnoresLookAheadRow() {
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_PAGED)).
+                thenReturn(Mono.just(new Product(PRODUCT_ID_PAGED, "name", 1, "mock-address")));
+        when(compositeIntegration.getReviews(PRODUCT_ID_PAGED, 0, 3)).
+                thenReturn(Flux.just(
+                        new Review(PRODUCT_ID_PAGED, 1, "author", "subject", "content", "mock address"),
+                        new Review(PRODUCT_ID_PAGED, 2, "author", "subject", "content", "mock address"),
+                        new Review(PRODUCT_ID_PAGED, 3, "author", "subject", "content", "mock address")));
+
+        String etag = client.get()
+                .uri("/product-composite/" + PRODUCT_ID_PAGED)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult()
+                .getResponseHeaders().getETag();
+
+        when(compositeIntegration.getReviews(PRODUCT_ID_PAGED, 0, 3)).
+                thenReturn(Flux.just(
+                        new Review(PRODUCT_ID_PAGED, 1, "author", "subject", "content", "mock address"),
+                        new Review(PRODUCT_ID_PAGED, 2, "author", "subject", "content", "mock address"),
+                        new Review(PRODUCT_ID_PAGED, 4, "other author", "subject", "content", "mock address")));
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_PAGED)
+                .accept(APPLICATION_JSON)
+                .header(IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(ETAG, etag);
+    }
+
+    @Test
+    public void getProductReportsServerTiming() {
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(ServerTiming.HEADER, header -> assertThat(header)
+                        .contains("product;dur=", "recommendation;dur=", "review;dur=", "assembly;dur=",
+                                "serialization;dur=", "total;dur="));
+    }
+
+    @Test
+    public void getProductReportsSerializationApartFromAssembly() {
+
+        // A body large enough for its encoding to take measurable time
+        char[] content = new char[8 * 1024 * 1024];
+        Arrays.fill(content, 'x');
+        when(compositeIntegration.getProduct(PRODUCT_ID_LARGE)).
+                thenReturn(Mono.just(new Product(PRODUCT_ID_LARGE, "name", 1, "mock-address")));
+        when(compositeIntegration.getReviews(eq(PRODUCT_ID_LARGE), anyInt(), anyInt())).
+                thenReturn(Flux.just(new Review(PRODUCT_ID_LARGE, 1, "author", "subject", new String(content), "mock address")));
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_LARGE)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(ServerTiming.HEADER, header -> assertThat(duration(header, "serialization")).isGreaterThanOrEqualTo(1.0));
+    }
+
+    @Test
+    public void getProductsByIds() {
+
+        client.get()
+                .uri("/product-composite?productIds=" + PRODUCT_ID_OK + "," + PRODUCT_ID_NOT_FOUND)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.products.length()").isEqualTo(1)
+                .jsonPath("$.products[0].productId").isEqualTo(PRODUCT_ID_OK)
+                .jsonPath("$.products[0].recommendations.length()").isEqualTo(1)
+                .jsonPath("$.products[0].reviews.length()").isEqualTo(1)
+                .jsonPath("$.missingProductIds[0]").isEqualTo(PRODUCT_ID_NOT_FOUND);
+    }
+
+    @Test
+    public void exportProducts() {
+
+        when(compositeIntegration.exportProducts(0)).thenReturn(Flux.just(
+                new Product(PRODUCT_ID_OK, "name", 1, "mock-address"),
+                new Product(PRODUCT_ID_PAGED, "name", 1, "mock-address")));
+
+        Flux<ProductAggregate> aggregates = client.get()
+                .uri("/product-composite/export")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(APPLICATION_NDJSON)
+                .returnResult(ProductAggregate.class)
+                .getResponseBody();
+
+        StepVerifier.create(aggregates)
+                .expectNextMatches(aggregate -> aggregate.getProductId() == PRODUCT_ID_OK && aggregate.getReviews().size() == 1)
+                .expectNextMatches(aggregate -> aggregate.getProductId() == PRODUCT_ID_PAGED && aggregate.getReviews().isEmpty())
+                .verifyComplete();
+    }
+
+    @Test
+    public void getProductTimesOutWithWildcardAccept() {
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_HUNG)).thenReturn(Mono.never());
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_HUNG)
+                .accept(ALL)
+                .exchange()
+                .expectStatus().isEqualTo(GATEWAY_TIMEOUT);
+    }
+
+    @Test
+    public void getProductTimesOutWithoutAccept() {
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_HUNG)).thenReturn(Mono.never());
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_HUNG)
+                .exchange()
+                .expectStatus().isEqualTo(GATEWAY_TIMEOUT);
+    }
+
+    @Test
+    public void exportProductsOutlivesTheDefaultTimeout() {
+
+        when(compositeIntegration.exportProducts(0)).thenReturn(Flux.just(
+                new Product(PRODUCT_ID_OK, "name", 1, "mock-address"),
+                new Product(PRODUCT_ID_PAGED, "name", 1, "mock-address"))
+                .delayElements(Duration.ofMillis(400)));
+
+        Flux<ProductAggregate> aggregates = client.get()
+                .uri("/product-composite/export")
+                .accept(ALL)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(ProductAggregate.class)
+                .getResponseBody();
+
+        StepVerifier.create(aggregates)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
     @Test
     public void getProductNotFound() {
 
@@ -97,4 +421,23 @@ class ProductCompositeServiceImplTest {
                 .jsonPath("$.path").isEqualTo("/product-composite/" + PRODUCT_ID_INVALID)
                 .jsonPath("$.message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
     }
-}
\ No newline at end of file
+
+    private static double duration(String serverTiming, String name) {
+        return Arrays.stream(serverTiming.split(","))
+                .map(String::trim)
+                .filter(metric -> metric.startsWith(name + ";dur="))
+                .mapToDouble(metric -> Double.parseDouble(metric.substring(name.length() + ";dur=".length())))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " in " + serverTiming));
+    }
+
+    private String getProductETag() {
+        return client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult()
+                .getResponseHeaders().getETag();
+    }
+}
@@ -0,0 +1,150 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kouz.util.exceptions.DeadlineExceededException;
+import com.kouz.util.http.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+class RequestCoalescerTest {
+
+    private static final int PRODUCT_ID = 1;
+
+    private MeterRegistry registry;
+    private RequestCoalescer<String> coalescer;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer<>("test", registry);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void sharesValueBetweenConcurrentCallers() {
+        Sinks.One<String> response = Sinks.one();
+
+        StepVerifier.create(Mono.zip(
+                coalescer.execute(PRODUCT_ID, () -> call(response)),
+                coalescer.execute(PRODUCT_ID, () -> call(response))))
+                .then(() -> response.tryEmitValue("v"))
+                .assertNext(values -> {
+                    assertThat(values.getT1()).isEqualTo("v");
+                    assertThat(values.getT2()).isEqualTo("v");
+                })
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(registry.get("composite.requests.coalesced").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void propagatesErrorToEveryCaller() {
+        Sinks.One<String> response = Sinks.one();
+
+        Mono<String> first = coalescer.execute(PRODUCT_ID, () -> call(response));
+        Mono<String> second = coalescer.execute(PRODUCT_ID, () -> call(response));
+
+        StepVerifier.create(Mono.zipDelayError(first.onErrorReturn("failed"), second.onErrorReturn("failed")))
+                .then(() -> response.tryEmitError(new RuntimeException("down")))
+                .assertNext(values -> {
+                    assertThat(values.getT1()).isEqualTo("failed");
+                    assertThat(values.getT2()).isEqualTo("failed");
+                })
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void startsNewCallAfterForget() {
+        Sinks.One<String> beforeWrite = Sinks.one();
+        Sinks.One<String> afterWrite = Sinks.one();
+
+        Mono<String> first = coalescer.execute(PRODUCT_ID, () -> call(beforeWrite));
+        Mono<String> second = Mono.fromRunnable(() -> coalescer.forget(PRODUCT_ID))
+                .then(coalescer.execute(PRODUCT_ID, () -> call(afterWrite)));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> beforeWrite.tryEmitValue("v1"))
+                .then(() -> afterWrite.tryEmitValue("v2"))
+                .assertNext(values -> {
+                    assertThat(values.getT1()).isEqualTo("v1");
+                    assertThat(values.getT2()).isEqualTo("v2");
+                })
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(registry.get("composite.requests.coalesced").counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    void startsNewCallOnceThePreviousHasCompleted() {
+        StepVerifier.create(coalescer.execute(PRODUCT_ID, () -> call(Mono.just("v1")))).expectNext("v1").verifyComplete();
+        StepVerifier.create(coalescer.execute(PRODUCT_ID, () -> call(Mono.just("v2")))).expectNext("v2").verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(registry.get("composite.requests.coalesced").counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    void appliesEachCallersOwnDeadline() {
+        Sinks.One<String> response = Sinks.one();
+        AtomicReference<ContextView> callContext = new AtomicReference<>();
+
+        Mono<String> shortDeadline = coalescer.execute(PRODUCT_ID, () -> Mono.deferContextual(context -> {
+                    callContext.set(context);
+                    return call(response);
+                }))
+                .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofMillis(100))));
+        Mono<String> longDeadline = coalescer.execute(PRODUCT_ID, () -> call(response))
+                .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ofSeconds(10))));
+
+        StepVerifier.create(Mono.zip(
+                        shortDeadline.onErrorResume(DeadlineExceededException.class, ex -> Mono.just("timed out")),
+                        longDeadline))
+                .then(() -> Mono.delay(Duration.ofMillis(300)).subscribe(tick -> response.tryEmitValue("v")))
+                .assertNext(values -> {
+                    assertThat(values.getT1()).isEqualTo("timed out");
+                    assertThat(values.getT2()).isEqualTo("v");
+                })
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+        // The shared call does not inherit the deadline of the caller that started it
+        assertThat(Deadline.from(callContext.get())).isEmpty();
+    }
+
+    @Test
+    void failsCallerWithExpiredDeadlineWithoutCalling() {
+        Mono<String> expired = coalescer.execute(PRODUCT_ID, () -> call(Mono.just("v")))
+                .contextWrite(Context.of(Deadline.class, Deadline.after(Duration.ZERO)));
+
+        StepVerifier.create(expired).verifyError(DeadlineExceededException.class);
+
+        assertThat(calls.get()).isZero();
+    }
+
+    private Mono<String> call(Sinks.One<String> response) {
+        return call(response.asMono());
+    }
+
+    private Mono<String> call(Mono<String> response) {
+        calls.incrementAndGet();
+        return response;
+    }
+}
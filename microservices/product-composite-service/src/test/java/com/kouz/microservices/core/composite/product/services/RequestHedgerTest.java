@@ -0,0 +1,100 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class RequestHedgerTest {
+
+    private static final Duration MIN_DELAY = Duration.ofMillis(10);
+
+    private MeterRegistry registry;
+    private VirtualTimeScheduler scheduler;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        scheduler = VirtualTimeScheduler.create();
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void hedgesSlowCallAndAnswersWithTheFirstResponse() {
+        RequestHedger<String> hedger = hedger(100);
+        warmUp(hedger);
+
+        Sinks.One<String> slow = Sinks.one();
+
+        StepVerifier.create(hedger.execute(() -> calls.incrementAndGet() == 1 ? slow.asMono() : Mono.just("hedge")))
+                .then(() -> scheduler.advanceTimeBy(MIN_DELAY))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(count("sent")).isEqualTo(1);
+        assertThat(count("won")).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotHedgeBeyondBudget() {
+        RequestHedger<String> hedger = hedger(0);
+        warmUp(hedger);
+
+        Sinks.One<String> slow = Sinks.one();
+
+        StepVerifier.create(hedger.execute(() -> {
+                    calls.incrementAndGet();
+                    return slow.asMono();
+                }))
+                .then(() -> scheduler.advanceTimeBy(MIN_DELAY))
+                .then(() -> slow.tryEmitValue("primary"))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(count("denied")).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotHedgeBeforeLatenciesAreKnown() {
+        RequestHedger<String> hedger = hedger(100);
+
+        Sinks.One<String> slow = Sinks.one();
+
+        StepVerifier.create(hedger.execute(() -> {
+                    calls.incrementAndGet();
+                    return slow.asMono();
+                }))
+                .then(() -> scheduler.advanceTimeBy(MIN_DELAY.multipliedBy(10)))
+                .then(() -> slow.tryEmitValue("primary"))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(count("sent")).isEqualTo(0);
+    }
+
+    private RequestHedger<String> hedger(int budgetPercent) {
+        return new RequestHedger<>("test", true, 0.5, MIN_DELAY, budgetPercent, 10, registry, scheduler);
+    }
+
+    private void warmUp(RequestHedger<String> hedger) {
+        StepVerifier.create(hedger.execute(() -> Mono.just("warm"))).expectNext("warm").verifyComplete();
+    }
+
+    private double count(String result) {
+        return registry.get("composite.requests.hedged").tag("result", result).counter().count();
+    }
+}
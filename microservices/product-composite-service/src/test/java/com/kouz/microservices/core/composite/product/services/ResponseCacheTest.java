@@ -0,0 +1,95 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kouz.util.exceptions.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class ResponseCacheTest {
+
+    private static final int PRODUCT_ID = 1;
+
+    private MeterRegistry registry;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void servesFreshEntryWithoutReloading() {
+        ResponseCache<String> cache = new ResponseCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(10), registry);
+
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> load("v1"))).expectNext("v1").verifyComplete();
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> load("v2"))).expectNext("v1").verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(registry.get("composite.cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("composite.cache.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reloadsAfterInvalidation() {
+        ResponseCache<String> cache = new ResponseCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(10), registry);
+
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> load("v1"))).expectNext("v1").verifyComplete();
+        cache.invalidate(PRODUCT_ID);
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> load("v2"))).expectNext("v2").verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotStoreALoadThatStartedBeforeInvalidation() {
+        ResponseCache<String> cache = new ResponseCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(10), registry);
+        Sinks.One<String> slowLoad = Sinks.one();
+
+        StepVerifier.create(cache.get(PRODUCT_ID, slowLoad::asMono))
+                .then(() -> cache.invalidate(PRODUCT_ID))
+                .then(() -> slowLoad.tryEmitValue("before write"))
+                .expectNext("before write")
+                .verifyComplete();
+
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> load("after write"))).expectNext("after write").verifyComplete();
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> load("v3"))).expectNext("after write").verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void servesStaleEntryOnError() {
+        ResponseCache<String> cache = new ResponseCache<>("test", 10, Duration.ZERO, Duration.ofMinutes(10), registry);
+
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> load("v1"))).expectNext("v1").verifyComplete();
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> Mono.error(new RuntimeException("down")))).expectNext("v1").verifyComplete();
+
+        assertThat(registry.get("composite.cache.gets").tag("result", "stale").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotHideNotFound() {
+        ResponseCache<String> cache = new ResponseCache<>("test", 10, Duration.ZERO, Duration.ofMinutes(10), registry);
+
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> load("v1"))).expectNext("v1").verifyComplete();
+        StepVerifier.create(cache.get(PRODUCT_ID, () -> Mono.error(new NotFoundException("gone")))).verifyError(NotFoundException.class);
+    }
+
+    private Mono<String> load(String value) {
+        return Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return value;
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.kouz.microservices.core.composite.product.services;
+
+import static java.nio.charset.StandardCharsets.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SerializedAggregateCacheTest {
+
+    private MeterRegistry registry;
+    private AtomicInteger serializations;
+    private SerializedAggregateCache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        serializations = new AtomicInteger();
+        cache = new SerializedAggregateCache(1024, Duration.ofMinutes(1), registry);
+    }
+
+    @Test
+    void serializesOncePerETag() {
+
+        assertThat(cache.get("\"1-a\"", () -> serialize("v1"))).isEqualTo(bytes("v1"));
+        assertThat(cache.get("\"1-a\"", () -> serialize("v2"))).isEqualTo(bytes("v1"));
+        assertThat(cache.get("\"1-a\"", () -> serialize("v3"))).isEqualTo(bytes("v1"));
+
+        assertThat(serializations.get()).isEqualTo(1);
+        assertThat(gets("hit")).isEqualTo(2);
+        assertThat(gets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void serializesAgainForANewETag() {
+
+        assertThat(cache.get("\"1-a\"", () -> serialize("v1"))).isEqualTo(bytes("v1"));
+        assertThat(cache.get("\"1-b\"", () -> serialize("v2"))).isEqualTo(bytes("v2"));
+
+        assertThat(serializations.get()).isEqualTo(2);
+        assertThat(gets("hit")).isZero();
+        assertThat(gets("miss")).isEqualTo(2);
+        assertThat(registry.get("composite.cache.size").tag("cache", "aggregate-bodies").gauge().value()).isEqualTo(2);
+    }
+
+    private byte[] serialize(String body) {
+        serializations.incrementAndGet();
+        return bytes(body);
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(UTF_8);
+    }
+
+    private double gets(String result) {
+        return registry.get("composite.cache.gets")
+                .tag("cache", "aggregate-bodies")
+                .tag("result", result)
+                .counter().count();
+    }
+}
@@ -4,29 +4,36 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.mapping.context.MappingContext;
-import org.springframework.data.mongodb.core.MongoOperations;
-import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
 import org.springframework.data.mongodb.core.index.IndexResolver;
 import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
 import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
 import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
 
 import com.kouz.microservices.core.product.persistence.ProductEntity;
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
 
 @RequiredArgsConstructor
 @Configuration
 public class MongoConfig {
 
-    private final MongoOperations mongoTemplate;
+    private final ReactiveMongoOperations mongoTemplate;
 
+    /**
+     * Blocks until the indices exist, so the service does not accept writes before the unique index is in place.
+     * This runs on the startup thread, not on an event loop.
+     */
     @EventListener(ContextRefreshedEvent.class)
     public void initIndicesAfterStartup() {
 
         MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext = mongoTemplate.getConverter().getMappingContext();
         IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
 
-        IndexOperations indexOps = mongoTemplate.indexOps(ProductEntity.class);
-        resolver.resolveIndexFor(ProductEntity.class).forEach(indexOps::ensureIndex);
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(ProductEntity.class);
+        Flux.fromIterable(resolver.resolveIndexFor(ProductEntity.class))
+                .concatMap(indexOps::ensureIndex)
+                .blockLast();
     }
 }
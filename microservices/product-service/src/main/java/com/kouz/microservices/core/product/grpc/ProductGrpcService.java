@@ -0,0 +1,65 @@
+package com.kouz.microservices.core.product.grpc;
+
+import static com.kouz.util.grpc.GrpcServerCalls.*;
+
+import java.util.HashSet;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.google.protobuf.Empty;
+import com.kouz.microservices.api.core.grpc.ExportRequest;
+import com.kouz.microservices.api.core.grpc.GrpcMessages;
+import com.kouz.microservices.api.core.grpc.ProductIdRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdsRequest;
+import com.kouz.microservices.api.core.grpc.ProductMessage;
+import com.kouz.microservices.api.core.grpc.ReactorProductServiceGrpc;
+import com.kouz.microservices.api.core.product.ProductService;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * gRPC transport of the {@link ProductService} bean, served by {@code GrpcServerRunner}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ProductGrpcService extends ReactorProductServiceGrpc.ProductServiceImplBase {
+    private final ProductService service;
+
+    @Override
+    public Mono<ProductMessage> createProduct(Mono<ProductMessage> request) {
+        return serve(request
+                .flatMap(message -> service.createProduct(GrpcMessages.fromMessage(message)))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Mono<ProductMessage> getProduct(Mono<ProductIdRequest> request) {
+        return serve(request
+                .flatMap(message -> service.getProduct(message.getProductId()))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Flux<ProductMessage> getProducts(Mono<ProductIdsRequest> request) {
+        return serveMany(request
+                .flatMapMany(message -> service.getProducts(new HashSet<>(message.getProductIdsList())))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Flux<ProductMessage> exportProducts(Mono<ExportRequest> request) {
+        return serveMany(request
+                .flatMapMany(message -> service.exportProducts(message.getAfterProductId()))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Mono<Empty> deleteProduct(Mono<ProductIdRequest> request) {
+        return serve(request
+                .flatMap(message -> service.deleteProduct(message.getProductId()))
+                .thenReturn(Empty.getDefaultInstance()));
+    }
+}
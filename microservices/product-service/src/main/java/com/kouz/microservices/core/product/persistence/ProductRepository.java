@@ -1,9 +1,22 @@
 package com.kouz.microservices.core.product.persistence;
 
-import java.util.Optional;
+import java.util.Collection;
 
-import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
 
-public interface ProductRepository extends PagingAndSortingRepository<ProductEntity, String> {
-    Optional<ProductEntity> findByProductId(int productId);
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ProductRepository extends ReactiveSortingRepository<ProductEntity, String> {
+    Mono<ProductEntity> findByProductId(int productId);
+
+    Flux<ProductEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    Flux<ProductEntity> findAllBy(Pageable pageable);
+
+    /**
+     * Walks the unique productId index; the reactive driver fetches cursor batches on demand.
+     */
+    Flux<ProductEntity> findByProductIdGreaterThanOrderByProductId(int afterProductId);
 }
@@ -1,5 +1,9 @@
 package com.kouz.microservices.core.product.services;
 
+import static com.kouz.microservices.api.core.CoreLimits.*;
+
+import java.util.Set;
+
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -9,9 +13,12 @@ import com.kouz.microservices.core.product.persistence.ProductEntity;
 import com.kouz.microservices.core.product.persistence.ProductRepository;
 import com.kouz.util.exceptions.InvalidInputException;
 import com.kouz.util.exceptions.NotFoundException;
+import com.kouz.util.http.ServerTiming;
 import com.kouz.util.http.ServiceUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -22,36 +29,58 @@ public class ProductServiceImpl implements ProductService {
     private final ProductMapper mapper;
 
     @Override
-    public Product createProduct(Product body) {
-        try {
-            ProductEntity entity = mapper.apiToEntity(body);
-            ProductEntity newEntity = repository.save(entity);
-
-            log.debug("createProduct: entity created for productId: {}", body.getProductId());
-            return mapper.entityToApi(newEntity);
-        } catch (DuplicateKeyException exception) {
-            throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId());
-        }
+    public Mono<Product> createProduct(Product body) {
+        ProductEntity entity = mapper.apiToEntity(body);
+
+        return repository.save(entity)
+                .onErrorMap(DuplicateKeyException.class, ex -> new InvalidInputException("Duplicate key, Product Id: " + body.getProductId()))
+                .map(mapper::entityToApi)
+                .doOnNext(product -> log.debug("createProduct: entity created for productId: {}", product.getProductId()));
     }
 
     @Override
-    public Product getProduct(int productId) {
+    public Mono<Product> getProduct(int productId) {
         if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
 
-        ProductEntity entity = repository.findByProductId(productId)
-                .orElseThrow(() -> new NotFoundException("No product found for productId: " + productId));
+        return repository.findByProductId(productId)
+                .transformDeferred(ServerTiming.timed("db"))
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No product found for productId: " + productId)))
+                .map(mapper::entityToApi)
+                .map(this::setServiceAddress)
+                .doOnNext(product -> log.debug("getProduct: found productId: {}", product.getProductId()));
+    }
 
-        Product response = mapper.entityToApi(entity);
-        response.setServiceAddress(serviceUtil.getServiceAddress());
+    @Override
+    public Flux<Product> getProducts(Set<Integer> productIds) {
+        if (productIds.size() > MAX_BATCH_SIZE) throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + MAX_BATCH_SIZE);
+        if (productIds.stream().anyMatch(productId -> productId < 1)) throw new InvalidInputException("Invalid productIds: " + productIds);
 
-        log.debug("getProduct: found productId: {}", response.getProductId());
+        return repository.findByProductIdIn(productIds)
+                .transformDeferred(ServerTiming.timedMany("db"))
+                .map(mapper::entityToApi)
+                .map(this::setServiceAddress);
+    }
 
-        return response;
+    @Override
+    public Flux<Product> exportProducts(int afterProductId) {
+        if (afterProductId < 0) throw new InvalidInputException("Invalid afterProductId: " + afterProductId);
+
+        log.debug("exportProducts: export products after productId: {}", afterProductId);
+
+        String serviceAddress = serviceUtil.getServiceAddress();
+        return repository.findByProductIdGreaterThanOrderByProductId(afterProductId)
+                .map(mapper::entityToApi)
+                .doOnNext(product -> product.setServiceAddress(serviceAddress));
     }
 
     @Override
-    public void deleteProduct(int productId) {
+    public Mono<Void> deleteProduct(int productId) {
         log.debug("deleteProduct: tries to delete an entity with productId: {}", productId);
-        repository.findByProductId(productId).ifPresent(repository::delete);
+        return repository.findByProductId(productId).flatMap(repository::delete);
+    }
+
+    private Product setServiceAddress(Product product) {
+        product.setServiceAddress(serviceUtil.getServiceAddress());
+        return product;
     }
 }
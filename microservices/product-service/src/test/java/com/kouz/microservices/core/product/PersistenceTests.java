@@ -4,8 +4,8 @@ import static java.util.stream.IntStream.*;
 import static org.assertj.core.api.Assertions.*;
 import static org.springframework.data.domain.Sort.Direction.*;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +14,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.OptimisticLockingFailureException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import com.kouz.microservices.core.product.persistence.ProductEntity;
 import com.kouz.microservices.core.product.persistence.ProductRepository;
+import reactor.test.StepVerifier;
 
 @DataMongoTest
 public class PersistenceTests {
@@ -30,110 +30,130 @@ public class PersistenceTests {
 
     @BeforeEach
     void setUp() {
-        repository.deleteAll();
+        StepVerifier.create(repository.deleteAll()).verifyComplete();
 
         ProductEntity entity = new ProductEntity(1, "n", 1);
-        savedEntity = repository.save(entity);
-
-        assertThat(savedEntity)
-                .usingRecursiveComparison()
-                .isEqualTo(entity);
+        StepVerifier.create(repository.save(entity))
+                .expectNextMatches(createdEntity -> {
+                    savedEntity = createdEntity;
+                    return areProductEqual(entity, savedEntity);
+                })
+                .verifyComplete();
     }
 
     @Test
     void create() {
 
         ProductEntity newEntity = new ProductEntity(2, "n", 2);
-        repository.save(newEntity);
 
-        ProductEntity foundEntity = repository.findById(newEntity.getId()).get();
+        StepVerifier.create(repository.save(newEntity))
+                .expectNextMatches(createdEntity -> newEntity.getProductId() == createdEntity.getProductId())
+                .verifyComplete();
 
-        assertThat(foundEntity)
-                .usingRecursiveComparison()
-                .isEqualTo(newEntity);
+        StepVerifier.create(repository.findById(newEntity.getId()))
+                .expectNextMatches(foundEntity -> areProductEqual(newEntity, foundEntity))
+                .verifyComplete();
 
-        assertThat(repository.count()).isEqualTo(2);
+        StepVerifier.create(repository.count()).expectNext(2L).verifyComplete();
     }
 
     @Test
     void update() {
         savedEntity.setName("n2");
-        repository.save(savedEntity);
+        StepVerifier.create(repository.save(savedEntity))
+                .expectNextMatches(updatedEntity -> updatedEntity.getName().equals("n2"))
+                .verifyComplete();
 
-        ProductEntity foundEntity = repository.findById(savedEntity.getId()).get();
-        assertThat(foundEntity.getVersion()).isEqualTo(1);
-        assertThat(foundEntity.getName()).isEqualTo("n2");
+        StepVerifier.create(repository.findById(savedEntity.getId()))
+                .expectNextMatches(foundEntity -> foundEntity.getVersion() == 1 && foundEntity.getName().equals("n2"))
+                .verifyComplete();
     }
 
     @Test
     void delete() {
-        repository.delete(savedEntity);
-        assertThat(repository.existsById(savedEntity.getId())).isFalse();
+        StepVerifier.create(repository.delete(savedEntity)).verifyComplete();
+        StepVerifier.create(repository.existsById(savedEntity.getId())).expectNext(false).verifyComplete();
     }
 
     @Test
     void getByProductId() {
-        Optional<ProductEntity> entity = repository.findByProductId(savedEntity.getProductId());
+        StepVerifier.create(repository.findByProductId(savedEntity.getProductId()))
+                .expectNextMatches(foundEntity -> areProductEqual(savedEntity, foundEntity))
+                .verifyComplete();
+    }
+
+    @Test
+    void getByProductIds() {
+        ProductEntity newEntity = new ProductEntity(2, "n", 2);
+        repository.save(newEntity).block();
+        repository.save(new ProductEntity(3, "n", 3)).block();
 
-        assertThat(entity.isPresent()).isTrue();
-        assertThat(entity.get())
-                .usingRecursiveComparison()
-                .isEqualTo(savedEntity);
+        List<ProductEntity> entities = repository.findByProductIdIn(Arrays.asList(savedEntity.getProductId(), newEntity.getProductId(), 4))
+                .collectList()
+                .block();
+
+        assertThat(entities)
+                .extracting(ProductEntity::getProductId)
+                .containsExactlyInAnyOrder(savedEntity.getProductId(), newEntity.getProductId());
     }
 
     @Test
     void duplicateError() {
         ProductEntity entity = new ProductEntity(savedEntity.getProductId(), "n", 1);
-        assertThatThrownBy(() -> repository.save(entity))
-                .isInstanceOf(DuplicateKeyException.class);
+        StepVerifier.create(repository.save(entity))
+                .expectError(DuplicateKeyException.class)
+                .verify();
     }
 
     @Test
     void optimisticLockError() {
-        ProductEntity entity1 = repository.findById(savedEntity.getId()).get();
-        ProductEntity entity2 = repository.findById(savedEntity.getId()).get();
+        ProductEntity entity1 = repository.findById(savedEntity.getId()).block();
+        ProductEntity entity2 = repository.findById(savedEntity.getId()).block();
 
         entity1.setName("n1");
-        repository.save(entity1);
-
-        try {
-            entity2.setName("n2");
-            repository.save(entity2);
+        repository.save(entity1).block();
 
-            fail("Expected an OptimisticLockingFailureException");
-        } catch (OptimisticLockingFailureException ignored) {
-        }
+        entity2.setName("n2");
+        StepVerifier.create(repository.save(entity2))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
 
-        ProductEntity updatedEntity = repository.findById(savedEntity.getId()).get();
-        assertThat(updatedEntity.getVersion()).isEqualTo(1);
-        assertThat(updatedEntity.getName()).isEqualTo("n1");
+        StepVerifier.create(repository.findById(savedEntity.getId()))
+                .expectNextMatches(foundEntity -> foundEntity.getVersion() == 1 && foundEntity.getName().equals("n1"))
+                .verifyComplete();
     }
 
     @Test
     void paging() {
 
-        repository.deleteAll();
+        repository.deleteAll().block();
 
         List<ProductEntity> newProducts = rangeClosed(1001, 1010)
                 .mapToObj(i -> new ProductEntity(i, "name " + i, i))
                 .collect(Collectors.toList());
-        repository.saveAll(newProducts);
+        repository.saveAll(newProducts).blockLast();
 
         Pageable nextPage = PageRequest.of(0, 4, ASC, "productId");
-        nextPage = testNextPage(nextPage, "[1001, 1002, 1003, 1004]", true);
-        nextPage = testNextPage(nextPage, "[1005, 1006, 1007, 1008]", true);
-        testNextPage(nextPage, "[1009, 1010]", false);
+        nextPage = testNextPage(nextPage, "[1001, 1002, 1003, 1004]");
+        nextPage = testNextPage(nextPage, "[1005, 1006, 1007, 1008]");
+        nextPage = testNextPage(nextPage, "[1009, 1010]");
+        testNextPage(nextPage, "[]");
     }
 
-    private Pageable testNextPage(Pageable nextPage, String expectedProductIds,
-            boolean expectsNextPage) {
-        Page<ProductEntity> productPage = repository.findAll(nextPage);
-        assertThat(productPage.getContent()
-                .stream()
+    private Pageable testNextPage(Pageable nextPage, String expectedProductIds) {
+        List<Integer> productIds = repository.findAllBy(nextPage)
                 .map(ProductEntity::getProductId)
-                .collect(Collectors.toList())
-                .toString()).isEqualTo(expectedProductIds);
-        assertThat(productPage.hasNext()).isEqualTo(expectsNextPage);
-        return productPage.nextPageable();
+                .collectList()
+                .block();
+        assertThat(productIds.toString()).isEqualTo(expectedProductIds);
+        return nextPage.next();
+    }
+
+    private boolean areProductEqual(ProductEntity expectedEntity, ProductEntity actualEntity) {
+        return (expectedEntity.getId().equals(actualEntity.getId()))
+                && (expectedEntity.getVersion().equals(actualEntity.getVersion()))
+                && (expectedEntity.getProductId() == actualEntity.getProductId())
+                && (expectedEntity.getName().equals(actualEntity.getName()))
+                && (expectedEntity.getWeight() == actualEntity.getWeight());
     }
 }
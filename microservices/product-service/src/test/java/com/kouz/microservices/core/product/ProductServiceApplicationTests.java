@@ -1,11 +1,15 @@
 package com.kouz.microservices.core.product;
 
+import static com.kouz.microservices.api.core.CoreMediaTypes.*;
+import static java.util.stream.Collectors.*;
 import static org.assertj.core.api.Assertions.*;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.*;
 import static reactor.core.publisher.Mono.*;
 
+import java.util.stream.IntStream;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +19,7 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 
 import com.kouz.microservices.api.core.product.Product;
 import com.kouz.microservices.core.product.persistence.ProductRepository;
+import com.kouz.util.http.Deadline;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"spring.data.mongodb.port: 0"})
 class ProductServiceApplicationTests {
@@ -27,7 +32,7 @@ class ProductServiceApplicationTests {
 
     @BeforeEach
     void setUp() {
-        repository.deleteAll();
+        repository.deleteAll().block();
     }
 
     @Test
@@ -37,10 +42,70 @@ class ProductServiceApplicationTests {
 
         postAndVerifyProduct(productId, OK);
 
-        assertThat(repository.findByProductId(productId).isPresent()).isTrue();
+        assertThat(repository.findByProductId(productId).block()).isNotNull();
 
         getAndVerifyProduct(productId, OK)
-                .jsonPath("$.productId").isEqualTo(productId);
+                .jsonPath("$.productId").isEqualTo(productId)
+                .jsonPath("$.version").isEqualTo(0);
+    }
+
+    @Test
+    void getProductAsSmile() {
+
+        postAndVerifyProduct(1, OK);
+
+        client.get()
+                .uri("/product/1")
+                .accept(APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectHeader().contentType(APPLICATION_SMILE)
+                .expectBody(Product.class)
+                .value(product -> assertThat(product.getProductId()).isEqualTo(1));
+    }
+
+    @Test
+    void getProductsByIds() {
+
+        postAndVerifyProduct(1, OK);
+        postAndVerifyProduct(2, OK);
+
+        client.get()
+                .uri("/product?productIds=1,2,3")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2);
+    }
+
+    @Test
+    void getProductsByIdsTooMany() {
+
+        String productIds = IntStream.rangeClosed(1, 501).mapToObj(String::valueOf).collect(joining(","));
+
+        getAndVerifyProduct("?productIds=" + productIds, UNPROCESSABLE_ENTITY)
+                .jsonPath("$.message").isEqualTo("Too many productIds: 501, max: 500");
+    }
+
+    @Test
+    void exportProducts() {
+
+        postAndVerifyProduct(1, OK);
+        postAndVerifyProduct(3, OK);
+        postAndVerifyProduct(2, OK);
+
+        client.get()
+                .uri("/product/export?afterProductId=1")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectHeader().contentTypeCompatibleWith(APPLICATION_NDJSON)
+                .expectBodyList(Product.class)
+                .value(products -> assertThat(products)
+                        .extracting(Product::getProductId)
+                        .containsExactly(2, 3));
     }
 
     @Test
@@ -50,7 +115,7 @@ class ProductServiceApplicationTests {
 
         postAndVerifyProduct(productId, OK);
 
-        assertThat(repository.findByProductId(productId).isPresent()).isTrue();
+        assertThat(repository.findByProductId(productId).block()).isNotNull();
 
         postAndVerifyProduct(productId, UNPROCESSABLE_ENTITY)
                 .jsonPath("$.path").isEqualTo("/product")
@@ -63,14 +128,27 @@ class ProductServiceApplicationTests {
         int productId = 1;
 
         postAndVerifyProduct(productId, OK);
-        assertThat(repository.findByProductId(productId).isPresent()).isTrue();
+        assertThat(repository.findByProductId(productId).block()).isNotNull();
 
         deleteAndVerifyProduct(productId, OK);
-        assertThat(repository.findByProductId(productId).isPresent()).isFalse();
+        assertThat(repository.findByProductId(productId).block()).isNull();
 
         deleteAndVerifyProduct(productId, OK);
     }
 
+    @Test
+    void getProductExpiredDeadline() {
+
+        postAndVerifyProduct(1, OK);
+
+        client.get()
+                .uri("/product/1")
+                .header(Deadline.HEADER, "0")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(GATEWAY_TIMEOUT);
+    }
+
     @Test
     void getProductInvalidParameterString() {
 
@@ -0,0 +1,95 @@
+package com.kouz.microservices.core.product;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kouz.microservices.api.core.grpc.ProductIdRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdsRequest;
+import com.kouz.microservices.api.core.grpc.ProductMessage;
+import com.kouz.microservices.api.core.grpc.ReactorProductServiceGrpc;
+import com.kouz.microservices.core.product.persistence.ProductRepository;
+import com.kouz.util.grpc.GrpcServerRunner;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "spring.data.mongodb.port: 0",
+        "app.grpc.enabled: true",
+        "app.grpc.port: 0"})
+class ProductServiceGrpcTests {
+
+    @Autowired
+    private GrpcServerRunner grpcServer;
+
+    @Autowired
+    private ProductRepository repository;
+
+    private ManagedChannel channel;
+    private ReactorProductServiceGrpc.ReactorProductServiceStub stub;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll().block();
+
+        channel = ManagedChannelBuilder.forAddress("localhost", grpcServer.getPort()).usePlaintext().build();
+        stub = ReactorProductServiceGrpc.newReactorStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+    }
+
+    @Test
+    void createAndGetProduct() {
+
+        StepVerifier.create(stub.createProduct(product(1)))
+                .assertNext(created -> assertThat(created.getProductId()).isEqualTo(1))
+                .verifyComplete();
+
+        StepVerifier.create(stub.getProduct(ProductIdRequest.newBuilder().setProductId(1).build()))
+                .assertNext(found -> {
+                    assertThat(found.getName()).isEqualTo("Name 1");
+                    assertThat(found.getServiceAddress()).isNotEmpty();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getProductsStreamsFoundProducts() {
+
+        stub.createProduct(product(1)).block();
+        stub.createProduct(product(2)).block();
+
+        StepVerifier.create(stub.getProducts(ProductIdsRequest.newBuilder().addAllProductIds(Arrays.asList(1, 2, 3)).build()))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void getProductNotFound() {
+
+        StepVerifier.create(stub.getProduct(ProductIdRequest.newBuilder().setProductId(13).build()))
+                .expectErrorSatisfies(ex -> {
+                    assertThat(ex).isInstanceOf(StatusRuntimeException.class);
+                    assertThat(((StatusRuntimeException) ex).getStatus().getCode()).isEqualTo(Status.Code.NOT_FOUND);
+                    assertThat(((StatusRuntimeException) ex).getStatus().getDescription()).isEqualTo("No product found for productId: 13");
+                })
+                .verify();
+    }
+
+    private ProductMessage product(int productId) {
+        return ProductMessage.newBuilder().setProductId(productId).setName("Name " + productId).setWeight(productId).build();
+    }
+}
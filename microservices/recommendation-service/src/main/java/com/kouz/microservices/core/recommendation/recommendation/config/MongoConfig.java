@@ -0,0 +1,39 @@
+package com.kouz.microservices.core.recommendation.recommendation.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import com.kouz.microservices.core.recommendation.recommendation.persistence.RecommendationEntity;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+@RequiredArgsConstructor
+@Configuration
+public class MongoConfig {
+
+    private final ReactiveMongoOperations mongoTemplate;
+
+    /**
+     * The unique (productId, recommendationId) index backs both duplicate detection and keyset paging, so it is
+     * created before the context finishes starting.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void initIndicesAfterStartup() {
+
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext = mongoTemplate.getConverter().getMappingContext();
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(RecommendationEntity.class);
+        Flux.fromIterable(resolver.resolveIndexFor(RecommendationEntity.class))
+                .concatMap(indexOps::ensureIndex)
+                .blockLast();
+    }
+}
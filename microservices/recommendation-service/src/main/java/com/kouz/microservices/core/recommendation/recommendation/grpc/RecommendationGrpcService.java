@@ -0,0 +1,73 @@
+package com.kouz.microservices.core.recommendation.recommendation.grpc;
+
+import static com.kouz.util.grpc.GrpcServerCalls.*;
+import static java.util.stream.Collectors.*;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.kouz.microservices.api.core.grpc.DeleteResult;
+import com.kouz.microservices.api.core.grpc.GrpcMessages;
+import com.kouz.microservices.api.core.grpc.PageRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdsRequest;
+import com.kouz.microservices.api.core.grpc.ReactorRecommendationServiceGrpc;
+import com.kouz.microservices.api.core.grpc.RecommendationBatchResultMessage;
+import com.kouz.microservices.api.core.grpc.RecommendationList;
+import com.kouz.microservices.api.core.grpc.RecommendationMessage;
+import com.kouz.microservices.api.core.recommendation.RecommendationService;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * gRPC transport of the {@link RecommendationService} bean, served by {@code GrpcServerRunner}. The recommendations
+ * of several products are streamed one by one, the caller groups them by product id.
+ */
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class RecommendationGrpcService extends ReactorRecommendationServiceGrpc.RecommendationServiceImplBase {
+    private final RecommendationService service;
+
+    @Override
+    public Mono<RecommendationMessage> createRecommendation(Mono<RecommendationMessage> request) {
+        return serve(request
+                .flatMap(message -> service.createRecommendation(GrpcMessages.fromMessage(message)))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Mono<RecommendationBatchResultMessage> createRecommendations(Mono<RecommendationList> request) {
+        return serve(request
+                .flatMap(message -> service.createRecommendations(message.getRecommendationsList().stream()
+                        .map(GrpcMessages::fromMessage)
+                        .collect(toList())))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Flux<RecommendationMessage> getRecommendations(Mono<PageRequest> request) {
+        return serveMany(request
+                .flatMapMany(message -> service.getRecommendations(message.getProductId(), message.getAfterId(), message.getLimit()))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Flux<RecommendationMessage> getRecommendationsByProduct(Mono<ProductIdsRequest> request) {
+        return serveMany(request
+                .flatMap(message -> service.getRecommendationsByProduct(new HashSet<>(message.getProductIdsList())))
+                .flatMapIterable(byProduct -> byProduct.values().stream().flatMap(List::stream).collect(toList()))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Mono<DeleteResult> deleteRecommendations(Mono<ProductIdRequest> request) {
+        return serve(request
+                .flatMap(message -> service.deleteRecommendations(message.getProductId()))
+                .map(deleted -> DeleteResult.newBuilder().setDeleted(deleted).build()));
+    }
+}
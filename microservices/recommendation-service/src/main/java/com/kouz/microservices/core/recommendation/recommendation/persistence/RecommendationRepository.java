@@ -1,9 +1,25 @@
 package com.kouz.microservices.core.recommendation.recommendation.persistence;
 
-import java.util.List;
+import java.util.Collection;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 
-public interface RecommendationRepository extends CrudRepository<RecommendationEntity, String> {
-    List<RecommendationEntity> findByProductId(int productId);
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface RecommendationRepository extends ReactiveCrudRepository<RecommendationEntity, String> {
+    Flux<RecommendationEntity> findByProductId(int productId);
+
+    /**
+     * Keyset page served from the unique (productId, recommendationId) index.
+     */
+    Flux<RecommendationEntity> findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationId(int productId, int afterRecommendationId, Pageable pageable);
+
+    Flux<RecommendationEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    /**
+     * Runs as a single server-side deleteMany, since the return type is a count and not the deleted entities.
+     */
+    Mono<Long> deleteByProductId(int productId);
 }
@@ -1,61 +1,151 @@
 package com.kouz.microservices.core.recommendation.recommendation.services;
 
+import static com.kouz.microservices.api.core.CoreLimits.*;
+import static java.util.stream.Collectors.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.api.core.recommendation.RecommendationBatchResult;
 import com.kouz.microservices.api.core.recommendation.RecommendationService;
 import com.kouz.microservices.core.recommendation.recommendation.persistence.RecommendationEntity;
 import com.kouz.microservices.core.recommendation.recommendation.persistence.RecommendationRepository;
 import com.kouz.util.exceptions.InvalidInputException;
+import com.kouz.util.http.ServerTiming;
 import com.kouz.util.http.ServiceUtil;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class RecommendationServiceImpl implements RecommendationService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DUPLICATE_KEY = 11000;
 
     private final RecommendationRepository repository;
 
+    private final ReactiveMongoOperations mongoTemplate;
+
     private final RecommendationMapper mapper;
 
     private final ServiceUtil serviceUtil;
 
     @Override
-    public Recommendation createRecommendation(Recommendation body) {
-        try {
-            RecommendationEntity entity = mapper.apiToEntity(body);
-            RecommendationEntity newEntity = repository.save(entity);
-
-            log.debug("createRecommendation: created a recommendation entity: {}/{}", body.getProductId(), body.getRecommendationId());
-            return mapper.entityToApi(newEntity);
+    public Mono<Recommendation> createRecommendation(Recommendation body) {
+        RecommendationEntity entity = mapper.apiToEntity(body);
+
+        return repository.save(entity)
+                .onErrorMap(DuplicateKeyException.class,
+                        ex -> new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Recommendation Id:" + body.getRecommendationId()))
+                .map(mapper::entityToApi)
+                .doOnNext(recommendation -> log.debug("createRecommendation: created a recommendation entity: {}/{}", recommendation.getProductId(), recommendation.getRecommendationId()));
+    }
 
-        } catch (DuplicateKeyException exception) {
-            throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Recommendation Id:" + body.getRecommendationId());
-        }
+    /**
+     * The batch is sent as one unordered insertMany, so a duplicate key only fails its own row and the rest of the
+     * batch is still stored. Rows that collide with a stored recommendation, or with another row of the same batch,
+     * are returned as duplicates.
+     */
+    @Override
+    public Mono<RecommendationBatchResult> createRecommendations(List<Recommendation> body) {
+        if (body.isEmpty()) return Mono.just(new RecommendationBatchResult(Collections.emptyList(), Collections.emptyList()));
+
+        List<RecommendationEntity> entityList = mapper.apiListToEntityList(body);
+        List<Document> documents = entityList.stream().map(this::toDocument).collect(toList());
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(RecommendationEntity.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(inserted -> Collections.<Integer>emptySet())
+                .onErrorResume(MongoBulkWriteException.class, this::duplicateRows)
+                .map(duplicateRows -> {
+                    List<Recommendation> created = new ArrayList<>();
+                    List<Recommendation> duplicates = new ArrayList<>();
+                    for (int i = 0; i < body.size(); i++) {
+                        if (duplicateRows.contains(i)) {
+                            duplicates.add(body.get(i));
+                        } else {
+                            created.add(mapper.entityToApi(entityList.get(i)));
+                        }
+                    }
+                    return new RecommendationBatchResult(created, duplicates);
+                })
+                .doOnNext(result -> log.debug("createRecommendations: created {} recommendation entities, {} duplicates", result.getCreated().size(), result.getDuplicates().size()));
     }
 
     @Override
-    public List<Recommendation> getRecommendations(int productId) {
+    public Flux<Recommendation> getRecommendations(int productId, int afterRecommendationId, int limit) {
 
         if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+        if (afterRecommendationId < 0) throw new InvalidInputException("Invalid afterRecommendationId: " + afterRecommendationId);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) throw new InvalidInputException("Invalid limit: " + limit + ", max: " + MAX_PAGE_SIZE);
 
-        List<RecommendationEntity> entityList = repository.findByProductId(productId);
-        List<Recommendation> list = mapper.entityListToApiList(entityList);
-        list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
+        return repository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationId(productId, afterRecommendationId, PageRequest.of(0, limit))
+                .transformDeferred(ServerTiming.timedMany("db"))
+                .map(mapper::entityToApi)
+                .map(this::setServiceAddress);
+    }
+
+    @Override
+    public Mono<Map<Integer, List<Recommendation>>> getRecommendationsByProduct(Set<Integer> productIds) {
 
-        log.debug("getRecommendations: response size: {}", list.size());
+        if (productIds.size() > MAX_BATCH_SIZE) throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + MAX_BATCH_SIZE);
+        if (productIds.stream().anyMatch(productId -> productId < 1)) throw new InvalidInputException("Invalid productIds: " + productIds);
 
-        return list;
+        return repository.findByProductIdIn(productIds)
+                .transformDeferred(ServerTiming.timedMany("db"))
+                .map(mapper::entityToApi)
+                .map(this::setServiceAddress)
+                .collect(groupingBy(Recommendation::getProductId));
     }
 
     @Override
-    public void deleteRecommendations(int productId) {
+    public Mono<Long> deleteRecommendations(int productId) {
         log.debug("deleteRecommendations: tries to delete recommendations for the product with productId: {}", productId);
-        repository.deleteAll(repository.findByProductId(productId));
+
+        return repository.deleteByProductId(productId)
+                .doOnNext(deleted -> log.debug("deleteRecommendations: deleted {} recommendations for productId: {}", deleted, productId));
+    }
+
+    /**
+     * Assigns the id and initial version that {@code save} would, since the insert bypasses the repository.
+     */
+    private Document toDocument(RecommendationEntity entity) {
+        entity.setId(new ObjectId().toHexString());
+        entity.setVersion(0);
+
+        Document document = new Document();
+        mongoTemplate.getConverter().write(entity, document);
+        return document;
+    }
+
+    /**
+     * Indexes of the rows rejected by the unique index. Any other write error fails the batch.
+     */
+    private Mono<Set<Integer>> duplicateRows(MongoBulkWriteException ex) {
+        if (ex.getWriteConcernError() != null || ex.getWriteErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) return Mono.error(ex);
+
+        return Mono.just(ex.getWriteErrors().stream().map(BulkWriteError::getIndex).collect(toSet()));
+    }
+
+    private Recommendation setServiceAddress(Recommendation recommendation) {
+        recommendation.setServiceAddress(serviceUtil.getServiceAddress());
+        return recommendation;
     }
 }
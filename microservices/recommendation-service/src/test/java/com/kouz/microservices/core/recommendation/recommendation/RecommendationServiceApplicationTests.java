@@ -1,12 +1,165 @@
 package com.kouz.microservices.core.recommendation.recommendation;
 
+import static java.util.stream.Collectors.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+import static org.springframework.http.HttpStatus.*;
+import static org.springframework.http.MediaType.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.JsonPathAssertions;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.kouz.microservices.api.core.recommendation.Recommendation;
+import com.kouz.microservices.core.recommendation.recommendation.persistence.RecommendationRepository;
 
-@SpringBootTest
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"spring.data.mongodb.port: 0"})
 class RecommendationServiceApplicationTests {
 
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private RecommendationRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll().block();
+    }
+
     @Test
     void contextLoads() {
     }
+
+    @Test
+    void createRecommendations() {
+
+        postAndVerifyRecommendations(Arrays.asList(recommendation(1, 1), recommendation(1, 2), recommendation(2, 1)), OK)
+                .jsonPath("$.created.length()").isEqualTo(3)
+                .jsonPath("$.duplicates.length()").isEqualTo(0);
+
+        assertThat(repository.findByProductId(1).count().block()).isEqualTo(2);
+        assertThat(repository.findByProductId(2).count().block()).isEqualTo(1);
+    }
+
+    @Test
+    void createRecommendationsStoresTheRestOfAMixedBatch() {
+
+        postAndVerifyRecommendation(1, 2, OK);
+
+        postAndVerifyRecommendations(Arrays.asList(recommendation(1, 1), recommendation(1, 2), recommendation(1, 3), recommendation(1, 3), recommendation(2, 1)), OK)
+                .jsonPath("$.created.length()").isEqualTo(3)
+                .jsonPath("$.created[0].recommendationId").isEqualTo(1)
+                .jsonPath("$.created[1].recommendationId").isEqualTo(3)
+                .jsonPath("$.created[2].productId").isEqualTo(2)
+                .jsonPath("$.duplicates.length()").isEqualTo(2)
+                .jsonPath("$.duplicates[0].recommendationId").isEqualTo(2)
+                .jsonPath("$.duplicates[1].recommendationId").isEqualTo(3);
+
+        assertThat(repository.findByProductId(1).count().block()).isEqualTo(3);
+        assertThat(repository.findByProductId(2).count().block()).isEqualTo(1);
+    }
+
+    @Test
+    void getRecommendationsByProductIds() {
+
+        postAndVerifyRecommendation(1, 1, OK);
+        postAndVerifyRecommendation(1, 2, OK);
+        postAndVerifyRecommendation(2, 1, OK);
+
+        getAndVerifyRecommendations("?productIds=1,2,3", OK)
+                .jsonPath("$.1.length()").isEqualTo(2)
+                .jsonPath("$.2.length()").isEqualTo(1)
+                .jsonPath("$.3").doesNotExist();
+    }
+
+    @Test
+    void getRecommendationsByProductIdsInvalidProductId() {
+
+        getAndVerifyRecommendations("?productIds=1,-1", UNPROCESSABLE_ENTITY)
+                .jsonPath("$.message").value(message -> assertThat((String) message).startsWith("Invalid productIds"));
+    }
+
+    @Test
+    void getRecommendationsByProductIdsTooMany() {
+
+        String productIds = IntStream.rangeClosed(1, 501).mapToObj(String::valueOf).collect(joining(","));
+
+        getAndVerifyRecommendations("?productIds=" + productIds, UNPROCESSABLE_ENTITY)
+                .jsonPath("$.message").isEqualTo("Too many productIds: 501, max: 500");
+    }
+
+    @Test
+    void deleteRecommendations() {
+
+        postAndVerifyRecommendation(1, 1, OK);
+        postAndVerifyRecommendation(1, 2, OK);
+        postAndVerifyRecommendation(2, 1, OK);
+
+        deleteAndVerifyRecommendations(1, OK).isEqualTo(2);
+        assertThat(repository.findByProductId(1).count().block()).isZero();
+        assertThat(repository.findByProductId(2).count().block()).isEqualTo(1);
+
+        deleteAndVerifyRecommendations(1, OK).isEqualTo(0);
+    }
+
+    private WebTestClient.BodyContentSpec postAndVerifyRecommendation(int productId, int recommendationId,
+            HttpStatus expectedStatus) {
+        return client.post()
+                .uri("/recommendation")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(recommendation(productId, recommendationId))
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody();
+    }
+
+    private WebTestClient.BodyContentSpec postAndVerifyRecommendations(List<Recommendation> recommendations,
+            HttpStatus expectedStatus) {
+        return client.post()
+                .uri("/recommendation/batch")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(recommendations)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody();
+    }
+
+    private WebTestClient.BodyContentSpec getAndVerifyRecommendations(String query,
+            HttpStatus expectedStatus) {
+        return client.get()
+                .uri("/recommendation" + query)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody();
+    }
+
+    private JsonPathAssertions deleteAndVerifyRecommendations(int productId,
+            HttpStatus expectedStatus) {
+        return client.delete()
+                .uri("/recommendation?productId=" + productId)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectBody()
+                .jsonPath("$");
+    }
+
+    private Recommendation recommendation(int productId, int recommendationId) {
+        return new Recommendation(productId, recommendationId, "Author " + recommendationId, recommendationId, "Content " + recommendationId, "SA");
+    }
 }
@@ -0,0 +1,124 @@
+package com.kouz.microservices.core.recommendation.recommendation;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kouz.microservices.api.core.grpc.PageRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdsRequest;
+import com.kouz.microservices.api.core.grpc.ReactorRecommendationServiceGrpc;
+import com.kouz.microservices.api.core.grpc.RecommendationList;
+import com.kouz.microservices.api.core.grpc.RecommendationMessage;
+import com.kouz.microservices.core.recommendation.recommendation.persistence.RecommendationRepository;
+import com.kouz.util.grpc.GrpcServerRunner;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "spring.data.mongodb.port: 0",
+        "app.grpc.enabled: true",
+        "app.grpc.port: 0"})
+class RecommendationServiceGrpcTests {
+
+    @Autowired
+    private GrpcServerRunner grpcServer;
+
+    @Autowired
+    private RecommendationRepository repository;
+
+    private ManagedChannel channel;
+    private ReactorRecommendationServiceGrpc.ReactorRecommendationServiceStub stub;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll().block();
+
+        channel = ManagedChannelBuilder.forAddress("localhost", grpcServer.getPort()).usePlaintext().build();
+        stub = ReactorRecommendationServiceGrpc.newReactorStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+    }
+
+    @Test
+    void createAndGetRecommendations() {
+
+        StepVerifier.create(stub.createRecommendations(recommendations(recommendation(1, 1), recommendation(1, 2), recommendation(1, 3))))
+                .assertNext(result -> {
+                    assertThat(result.getCreatedCount()).isEqualTo(3);
+                    assertThat(result.getDuplicatesCount()).isZero();
+                })
+                .verifyComplete();
+
+        StepVerifier.create(stub.getRecommendations(page(1, 1, 10)))
+                .assertNext(found -> {
+                    assertThat(found.getRecommendationId()).isEqualTo(2);
+                    assertThat(found.getServiceAddress()).isNotEmpty();
+                })
+                .assertNext(found -> assertThat(found.getRecommendationId()).isEqualTo(3))
+                .verifyComplete();
+    }
+
+    @Test
+    void getRecommendationsByProductStreamsAllProducts() {
+
+        stub.createRecommendations(recommendations(recommendation(1, 1), recommendation(1, 2), recommendation(2, 1))).block();
+
+        StepVerifier.create(stub.getRecommendationsByProduct(ProductIdsRequest.newBuilder().addAllProductIds(Arrays.asList(1, 2, 3)).build()))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteRecommendationsReturnsCount() {
+
+        stub.createRecommendations(recommendations(recommendation(1, 1), recommendation(1, 2), recommendation(2, 1))).block();
+
+        StepVerifier.create(stub.deleteRecommendations(ProductIdRequest.newBuilder().setProductId(1).build()))
+                .assertNext(result -> assertThat(result.getDeleted()).isEqualTo(2))
+                .verifyComplete();
+    }
+
+    @Test
+    void getRecommendationsInvalidProductId() {
+
+        StepVerifier.create(stub.getRecommendations(page(-1, 0, 10)))
+                .expectErrorSatisfies(ex -> {
+                    assertThat(ex).isInstanceOf(StatusRuntimeException.class);
+                    assertThat(((StatusRuntimeException) ex).getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+                    assertThat(((StatusRuntimeException) ex).getStatus().getDescription()).isEqualTo("Invalid productId: -1");
+                })
+                .verify();
+    }
+
+    private RecommendationList recommendations(RecommendationMessage... recommendations) {
+        return RecommendationList.newBuilder().addAllRecommendations(Arrays.asList(recommendations)).build();
+    }
+
+    private RecommendationMessage recommendation(int productId, int recommendationId) {
+        return RecommendationMessage.newBuilder()
+                .setProductId(productId)
+                .setRecommendationId(recommendationId)
+                .setAuthor("Author " + recommendationId)
+                .setRate(recommendationId)
+                .setContent("Content " + recommendationId)
+                .build();
+    }
+
+    private PageRequest page(int productId, int afterId, int limit) {
+        return PageRequest.newBuilder().setProductId(productId).setAfterId(afterId).setLimit(limit).build();
+    }
+}
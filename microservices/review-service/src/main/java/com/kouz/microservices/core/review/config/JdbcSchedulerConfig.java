@@ -0,0 +1,95 @@
+package com.kouz.microservices.core.review.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Scheduler that the blocking JPA calls of the review service run on, selected by {@code app.jdbc.execution-mode}.
+ * <p>
+ * {@code event-loop} runs them on the calling WebFlux thread, as the service always did. {@code virtual-threads}
+ * runs each call on its own virtual thread and needs a Java 21 runtime. At most {@code app.jdbc.max-concurrency}
+ * calls use the connection pool at once. The others wait on a semaphore, which does not pin a carrier thread.
+ */
+@Slf4j
+@Profile("!r2dbc")
+@Configuration
+public class JdbcSchedulerConfig {
+    static final String EVENT_LOOP = "event-loop";
+    static final String VIRTUAL_THREADS = "virtual-threads";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    @Value("${app.jdbc.execution-mode}")  String executionMode;
+    @Value("${app.jdbc.max-concurrency}") int    maxConcurrency;
+
+    private ExecutorService virtualThreads;
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler() {
+        log.info("Running JPA calls in {} mode, max concurrency: {}", executionMode, maxConcurrency);
+
+        switch (executionMode) {
+            case EVENT_LOOP:
+                return Schedulers.immediate();
+
+            case VIRTUAL_THREADS:
+                virtualThreads = newVirtualThreadPerTaskExecutor();
+                ExecutorService executor = virtualThreads;
+                Semaphore permits = new Semaphore(maxConcurrency);
+                Executor bounded = task -> executor.execute(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+                return Schedulers.fromExecutor(bounded);
+
+            default:
+                throw new IllegalArgumentException("Unknown app.jdbc.execution-mode: " + executionMode
+                        + ", expected " + EVENT_LOOP + " or " + VIRTUAL_THREADS);
+        }
+    }
+
+    /**
+     * Disposing a scheduler created from a plain {@link Executor} leaves the executor running, so the virtual-thread
+     * executor is shut down here. Calls still running get until the timeout to finish.
+     */
+    @PreDestroy
+    void shutdownVirtualThreads() throws InterruptedException {
+        if (virtualThreads == null) return;
+
+        virtualThreads.shutdown();
+        if (!virtualThreads.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("JPA calls still running {}s after shutdown, interrupting them", SHUTDOWN_TIMEOUT_SECONDS);
+            virtualThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * Looked up reflectively so the module keeps compiling to Java 8 bytecode, which the class-file reader in
+     * Spring 5.3 still supports.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(VIRTUAL_THREADS + " requires a Java 21 runtime, running on: "
+                    + System.getProperty("java.version"), ex);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.kouz.microservices.core.review.grpc;
+
+import static com.kouz.util.grpc.GrpcServerCalls.*;
+import static java.util.stream.Collectors.*;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.kouz.microservices.api.core.grpc.DeleteResult;
+import com.kouz.microservices.api.core.grpc.GrpcMessages;
+import com.kouz.microservices.api.core.grpc.PageRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdsRequest;
+import com.kouz.microservices.api.core.grpc.ReactorReviewServiceGrpc;
+import com.kouz.microservices.api.core.grpc.ReviewBatchResultMessage;
+import com.kouz.microservices.api.core.grpc.ReviewList;
+import com.kouz.microservices.api.core.grpc.ReviewMessage;
+import com.kouz.microservices.api.core.review.ReviewService;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * gRPC transport of the {@link ReviewService} bean, JPA or R2DBC, served by {@code GrpcServerRunner}. The reviews
+ * of several products are streamed one by one, the caller groups them by product id.
+ */
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReviewGrpcService extends ReactorReviewServiceGrpc.ReviewServiceImplBase {
+    private final ReviewService service;
+
+    @Override
+    public Mono<ReviewMessage> createReview(Mono<ReviewMessage> request) {
+        return serve(request
+                .flatMap(message -> service.createReview(GrpcMessages.fromMessage(message)))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Mono<ReviewBatchResultMessage> createReviews(Mono<ReviewList> request) {
+        return serve(request
+                .flatMap(message -> service.createReviews(message.getReviewsList().stream()
+                        .map(GrpcMessages::fromMessage)
+                        .collect(toList())))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Flux<ReviewMessage> getReviews(Mono<PageRequest> request) {
+        return serveMany(request
+                .flatMapMany(message -> service.getReviews(message.getProductId(), message.getAfterId(), message.getLimit()))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Flux<ReviewMessage> getReviewsByProduct(Mono<ProductIdsRequest> request) {
+        return serveMany(request
+                .flatMap(message -> service.getReviewsByProduct(new HashSet<>(message.getProductIdsList())))
+                .flatMapIterable(byProduct -> byProduct.values().stream().flatMap(List::stream).collect(toList()))
+                .map(GrpcMessages::toMessage));
+    }
+
+    @Override
+    public Mono<DeleteResult> deleteReviews(Mono<ProductIdRequest> request) {
+        return serve(request
+                .flatMap(message -> service.deleteReviews(message.getProductId()))
+                .map(deleted -> DeleteResult.newBuilder().setDeleted(deleted).build()));
+    }
+}
@@ -0,0 +1,33 @@
+package com.kouz.microservices.core.review.persistence;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * R2DBC mapping of the {@code reviews} table, used with the {@code r2dbc} profile. The schema, including the unique
+ * (productId, reviewId) index, is created from {@code schema-r2dbc.sql}.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("reviews")
+public class ReactiveReviewEntity {
+    @Id
+    private Integer id;
+
+    @Version
+    private Integer version;
+
+    private int productId;
+    private int reviewId;
+    private String author;
+    private String subject;
+    private String content;
+}
@@ -0,0 +1,33 @@
+package com.kouz.microservices.core.review.persistence;
+
+import java.util.Collection;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveReviewRepository extends ReactiveCrudRepository<ReactiveReviewEntity, Integer> {
+
+    Flux<ReactiveReviewEntity> findByProductId(int productId);
+
+    /**
+     * Keyset page served from the unique (product_id, review_id) index.
+     */
+    @Query("SELECT * FROM reviews WHERE product_id = :productId AND review_id > :afterReviewId ORDER BY review_id LIMIT :limit")
+    Flux<ReactiveReviewEntity> findPage(@Param("productId") int productId, @Param("afterReviewId") int afterReviewId, @Param("limit") int limit);
+
+    Flux<ReactiveReviewEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    /**
+     * Stored reviews that may collide with a batch, bounded by the batch's product and review ids.
+     */
+    Flux<ReactiveReviewEntity> findByProductIdInAndReviewIdIn(Collection<Integer> productIds, Collection<Integer> reviewIds);
+
+    @Modifying
+    @Query("DELETE FROM reviews WHERE product_id = :productId")
+    Mono<Integer> deleteByProductId(@Param("productId") int productId);
+}
@@ -0,0 +1,11 @@
+package com.kouz.microservices.core.review.persistence;
+
+/**
+ * Projection of the unique (productId, reviewId) key of a stored review.
+ */
+public interface ReviewKey {
+
+    int getProductId();
+
+    int getReviewId();
+}
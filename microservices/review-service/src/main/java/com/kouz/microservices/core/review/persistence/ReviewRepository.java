@@ -1,12 +1,41 @@
 package com.kouz.microservices.core.review.persistence;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 public interface ReviewRepository extends CrudRepository<ReviewEntity, Integer> {
 
     @Transactional(readOnly = true)
     List<ReviewEntity> findByProductId(int productId);
+
+    /**
+     * Keyset page served from the unique (productId, reviewId) index.
+     */
+    @Transactional(readOnly = true)
+    List<ReviewEntity> findByProductIdAndReviewIdGreaterThanOrderByReviewId(int productId, int afterReviewId, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    List<ReviewEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    /**
+     * Keys of the stored reviews that may collide with a batch: only the two key columns are selected, and only
+     * for the product and review ids in the batch, so the result is bounded by the batch and not by the products.
+     */
+    @Transactional(readOnly = true)
+    List<ReviewKey> findByProductIdInAndReviewIdIn(Collection<Integer> productIds, Collection<Integer> reviewIds);
+
+    /**
+     * Bulk delete in one statement, without loading the entities or checking their versions.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ReviewEntity r where r.productId = :productId")
+    int deleteByProductId(@Param("productId") int productId);
 }
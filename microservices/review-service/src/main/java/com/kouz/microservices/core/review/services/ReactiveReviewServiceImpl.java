@@ -0,0 +1,134 @@
+package com.kouz.microservices.core.review.services;
+
+import static com.kouz.microservices.api.core.CoreLimits.*;
+import static java.util.stream.Collectors.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.api.core.review.ReviewBatchResult;
+import com.kouz.microservices.api.core.review.ReviewService;
+import com.kouz.microservices.core.review.persistence.ReactiveReviewEntity;
+import com.kouz.microservices.core.review.persistence.ReactiveReviewRepository;
+import com.kouz.util.exceptions.InvalidInputException;
+import com.kouz.util.http.ServerTiming;
+import com.kouz.util.http.ServiceUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReviewService} on R2DBC, active with the {@code r2dbc} profile. Rows are streamed from the driver, so
+ * {@code getReviews} honours the subscriber's demand instead of loading the whole result first.
+ */
+@Slf4j
+@Profile("r2dbc")
+@RequiredArgsConstructor
+@RestController
+public class ReactiveReviewServiceImpl implements ReviewService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveReviewRepository repository;
+
+    private final ReviewMapper mapper;
+
+    private final ServiceUtil serviceUtil;
+
+    @Override
+    public Mono<Review> createReview(Review body) {
+        ReactiveReviewEntity entity = mapper.apiToReactiveEntity(body);
+
+        return repository.save(entity)
+                .onErrorMap(DataIntegrityViolationException.class,
+                        ex -> new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Review Id:" + body.getReviewId()))
+                .map(mapper::reactiveEntityToApi)
+                .doOnNext(review -> log.debug("createReview: created a review entity: {}/{}", review.getProductId(), review.getReviewId()));
+    }
+
+    /**
+     * Same contract as the JPA implementation: existing and repeated keys are reported as duplicates, the rest is
+     * inserted in one transaction.
+     */
+    @Override
+    @Transactional
+    public Mono<ReviewBatchResult> createReviews(List<Review> body) {
+        Set<Integer> productIds = body.stream().map(Review::getProductId).collect(toSet());
+        Set<Integer> reviewIds = body.stream().map(Review::getReviewId).collect(toSet());
+
+        return repository.findByProductIdInAndReviewIdIn(productIds, reviewIds)
+                .map(e -> key(e.getProductId(), e.getReviewId()))
+                .collect(toCollection(HashSet::new))
+                .flatMap(keys -> {
+                    List<ReactiveReviewEntity> accepted = new ArrayList<>();
+                    List<Review> duplicates = new ArrayList<>();
+                    for (Review review : body) {
+                        if (keys.add(key(review.getProductId(), review.getReviewId()))) {
+                            accepted.add(mapper.apiToReactiveEntity(review));
+                        } else {
+                            duplicates.add(review);
+                        }
+                    }
+
+                    return repository.saveAll(accepted)
+                            .map(mapper::reactiveEntityToApi)
+                            .collectList()
+                            .map(created -> new ReviewBatchResult(created, duplicates));
+                })
+                .onErrorMap(DataIntegrityViolationException.class, ex -> new InvalidInputException("Duplicate key in batch of " + body.size() + " reviews"))
+                .doOnNext(result -> log.debug("createReviews: created {} review entities, {} duplicates", result.getCreated().size(), result.getDuplicates().size()));
+    }
+
+    @Override
+    public Flux<Review> getReviews(int productId, int afterReviewId, int limit) {
+
+        if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+        if (afterReviewId < 0) throw new InvalidInputException("Invalid afterReviewId: " + afterReviewId);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) throw new InvalidInputException("Invalid limit: " + limit + ", max: " + MAX_PAGE_SIZE);
+
+        return repository.findPage(productId, afterReviewId, limit)
+                .transformDeferred(ServerTiming.timedMany("db"))
+                .map(mapper::reactiveEntityToApi)
+                .map(this::setServiceAddress);
+    }
+
+    @Override
+    public Mono<Map<Integer, List<Review>>> getReviewsByProduct(Set<Integer> productIds) {
+
+        if (productIds.size() > MAX_BATCH_SIZE) throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + MAX_BATCH_SIZE);
+        if (productIds.stream().anyMatch(productId -> productId < 1)) throw new InvalidInputException("Invalid productIds: " + productIds);
+
+        return repository.findByProductIdIn(productIds)
+                .transformDeferred(ServerTiming.timedMany("db"))
+                .map(mapper::reactiveEntityToApi)
+                .map(this::setServiceAddress)
+                .collect(groupingBy(Review::getProductId));
+    }
+
+    @Override
+    public Mono<Long> deleteReviews(int productId) {
+        log.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
+
+        return repository.deleteByProductId(productId)
+                .map(Integer::longValue)
+                .doOnNext(deleted -> log.debug("deleteReviews: deleted {} reviews for productId: {}", deleted, productId));
+    }
+
+    private Review setServiceAddress(Review review) {
+        review.setServiceAddress(serviceUtil.getServiceAddress());
+        return review;
+    }
+
+    private String key(int productId, int reviewId) {
+        return productId + "/" + reviewId;
+    }
+}
@@ -7,6 +7,7 @@ import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
 
 import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.core.review.persistence.ReactiveReviewEntity;
 import com.kouz.microservices.core.review.persistence.ReviewEntity;
 
 @Mapper(componentModel = "spring")
@@ -23,6 +24,17 @@ public interface ReviewMapper {
     })
     ReviewEntity apiToEntity(Review api);
 
+    @Mappings({
+        @Mapping(target = "serviceAddress", ignore = true)
+    })
+    Review reactiveEntityToApi(ReactiveReviewEntity entity);
+
+    @Mappings({
+        @Mapping(target = "id", ignore = true),
+        @Mapping(target = "version", ignore = true)
+    })
+    ReactiveReviewEntity apiToReactiveEntity(Review api);
+
     List<Review> entityListToApiList(List<ReviewEntity> entity);
     List<ReviewEntity> apiListToEntityList(List<Review> api);
 }
\ No newline at end of file
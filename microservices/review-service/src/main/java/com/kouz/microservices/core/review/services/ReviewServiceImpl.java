@@ -1,61 +1,196 @@
 package com.kouz.microservices.core.review.services;
 
+import static com.kouz.microservices.api.core.CoreLimits.*;
+import static java.util.stream.Collectors.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.api.core.review.ReviewBatchResult;
 import com.kouz.microservices.api.core.review.ReviewService;
 import com.kouz.microservices.core.review.persistence.ReviewEntity;
 import com.kouz.microservices.core.review.persistence.ReviewRepository;
 import com.kouz.util.exceptions.InvalidInputException;
+import com.kouz.util.http.Deadline;
+import com.kouz.util.http.ServerTiming;
 import com.kouz.util.http.ServiceUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Slf4j
+@Profile("!r2dbc")
 @RequiredArgsConstructor
 @RestController
 public class ReviewServiceImpl implements ReviewService {
-    
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final ReviewRepository repository;
 
     private final ReviewMapper mapper;
 
     private final ServiceUtil serviceUtil;
 
+    private final Scheduler jdbcScheduler;
+
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public Mono<Review> createReview(Review body) {
+        return blocking(() -> {
+            try {
+                ReviewEntity entity = mapper.apiToEntity(body);
+                ReviewEntity newEntity = repository.save(entity);
+
+                log.debug("createReview: created a review entity: {}/{}", body.getProductId(), body.getReviewId());
+                return mapper.entityToApi(newEntity);
+
+            } catch (DataIntegrityViolationException dive) {
+                throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Review Id:" + body.getReviewId());
+            }
+        });
+    }
+
+    /**
+     * Rows whose productId/reviewId already exists, in the database or earlier in the same batch, are reported
+     * as duplicates. The remaining rows are inserted in one transaction, with JDBC batching.
+     */
     @Override
-    public Review createReview(Review body) {
-        try {
-            ReviewEntity entity = mapper.apiToEntity(body);
-            ReviewEntity newEntity = repository.save(entity);
+    public Mono<ReviewBatchResult> createReviews(List<Review> body) {
+        return blocking(() -> {
+            Set<Integer> productIds = body.stream().map(Review::getProductId).collect(toSet());
+            Set<Integer> reviewIds = body.stream().map(Review::getReviewId).collect(toSet());
+            Set<String> keys = repository.findByProductIdInAndReviewIdIn(productIds, reviewIds).stream()
+                    .map(k -> key(k.getProductId(), k.getReviewId()))
+                    .collect(toCollection(HashSet::new));
+
+            List<Review> accepted = new ArrayList<>();
+            List<Review> duplicates = new ArrayList<>();
+            for (Review review : body) {
+                if (keys.add(key(review.getProductId(), review.getReviewId()))) {
+                    accepted.add(review);
+                } else {
+                    duplicates.add(review);
+                }
+            }
+
+            try {
+                Iterable<ReviewEntity> newEntities = repository.saveAll(mapper.apiListToEntityList(accepted));
+                List<Review> created = new ArrayList<>();
+                newEntities.forEach(entity -> created.add(mapper.entityToApi(entity)));
 
-            log.debug("createReview: created a review entity: {}/{}", body.getProductId(), body.getReviewId());
-            return mapper.entityToApi(newEntity);
+                log.debug("createReviews: created {} review entities, {} duplicates", created.size(), duplicates.size());
+                return new ReviewBatchResult(created, duplicates);
 
-        } catch (DataIntegrityViolationException dive) {
-            throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Review Id:" + body.getReviewId());
-        }
+            } catch (DataIntegrityViolationException dive) {
+                throw new InvalidInputException("Duplicate key in batch of " + body.size() + " reviews");
+            }
+        });
     }
 
     @Override
-    public List<Review> getReviews(int productId) {
+    public Flux<Review> getReviews(int productId, int afterReviewId, int limit) {
 
         if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+        if (afterReviewId < 0) throw new InvalidInputException("Invalid afterReviewId: " + afterReviewId);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) throw new InvalidInputException("Invalid limit: " + limit + ", max: " + MAX_PAGE_SIZE);
 
-        List<ReviewEntity> entityList = repository.findByProductId(productId);
-        List<Review> list = mapper.entityListToApiList(entityList);
-        list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
+        return blockingQuery(() -> {
+            List<ReviewEntity> entityList = repository.findByProductIdAndReviewIdGreaterThanOrderByReviewId(productId, afterReviewId, PageRequest.of(0, limit));
+            List<Review> list = mapper.entityListToApiList(entityList);
+            list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
 
-        log.debug("getReviews: response size: {}", list.size());
+            log.debug("getReviews: response size: {}", list.size());
 
-        return list;
+            return list;
+        }).flatMapIterable(list -> list);
     }
 
     @Override
-    public void deleteReviews(int productId) {
+    public Mono<Map<Integer, List<Review>>> getReviewsByProduct(Set<Integer> productIds) {
+
+        if (productIds.size() > MAX_BATCH_SIZE) throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max: " + MAX_BATCH_SIZE);
+        if (productIds.stream().anyMatch(productId -> productId < 1)) throw new InvalidInputException("Invalid productIds: " + productIds);
+
+        return blockingQuery(() -> {
+            List<ReviewEntity> entityList = repository.findByProductIdIn(productIds);
+            List<Review> list = mapper.entityListToApiList(entityList);
+            String serviceAddress = serviceUtil.getServiceAddress();
+            list.forEach(e -> e.setServiceAddress(serviceAddress));
+
+            log.debug("getReviewsByProduct: response size: {}", list.size());
+
+            return list.stream().collect(groupingBy(Review::getProductId));
+        });
+    }
+
+    @Override
+    public Mono<Long> deleteReviews(int productId) {
         log.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
-        repository.deleteAll(repository.findByProductId(productId));
+
+        return blocking(() -> {
+            long deleted = repository.deleteByProductId(productId);
+
+            log.debug("deleteReviews: deleted {} reviews for productId: {}", deleted, productId);
+            return deleted;
+        });
+    }
+
+    /**
+     * Runs a blocking JPA call on the scheduler selected by {@code app.jdbc.execution-mode}. The call is skipped
+     * if the request's deadline has passed while it waited for a thread. Its duration, without the wait, is
+     * reported as {@code db} server timing.
+     */
+    private <T> Mono<T> blocking(Supplier<T> call) {
+        return Mono.deferContextual(context -> {
+            Optional<Deadline> deadline = Deadline.from(context);
+            Optional<ServerTiming> timing = ServerTiming.from(context);
+            return Mono.fromSupplier(() -> {
+                deadline.ifPresent(d -> d.check("querying reviews"));
+                long start = System.nanoTime();
+                try {
+                    return call.get();
+                } finally {
+                    timing.ifPresent(t -> t.record("db", System.nanoTime() - start));
+                }
+            }).subscribeOn(jdbcScheduler);
+        });
+    }
+
+    /**
+     * As {@link #blocking}, for reads. They run in a read-only transaction whose timeout, and so the JDBC query
+     * timeout, is the time left until the deadline.
+     */
+    private <T> Mono<T> blockingQuery(Supplier<T> call) {
+        return Mono.deferContextual(context -> {
+            Optional<Deadline> deadline = Deadline.from(context);
+            if (!deadline.isPresent()) return blocking(call);
+
+            return blocking(() -> {
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                transaction.setReadOnly(true);
+                transaction.setTimeout((int) Math.max(1, (deadline.get().remaining().toMillis() + 999) / 1000));
+                return transaction.execute(status -> call.get());
+            });
+        });
+    }
+
+    private String key(int productId, int reviewId) {
+        return productId + "/" + reviewId;
     }
-}
\ No newline at end of file
+}
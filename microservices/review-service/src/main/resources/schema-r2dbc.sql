@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS reviews (
+    id         INT AUTO_INCREMENT PRIMARY KEY,
+    version    INT,
+    product_id INT NOT NULL,
+    review_id  INT NOT NULL,
+    author     VARCHAR(255),
+    subject    VARCHAR(255),
+    content    VARCHAR(255),
+    CONSTRAINT reviews_unique_idx UNIQUE (product_id, review_id)
+);
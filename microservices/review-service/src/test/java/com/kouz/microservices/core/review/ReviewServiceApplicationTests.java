@@ -1,12 +1,148 @@
 package com.kouz.microservices.core.review;
 
+import static java.util.stream.Collectors.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+import static org.springframework.http.HttpStatus.*;
+import static org.springframework.http.MediaType.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.JsonPathAssertions;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.core.review.persistence.ReviewRepository;
 
-@SpringBootTest
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"spring.datasource.url=jdbc:h2:mem:review-db"})
 class ReviewServiceApplicationTests {
 
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ReviewRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void createReviews() {
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1), review(1, 2), review(2, 1)), OK)
+                .jsonPath("$.created.length()").isEqualTo(3)
+                .jsonPath("$.duplicates.length()").isEqualTo(0);
+
+        assertThat(repository.findByProductId(1)).hasSize(2);
+        assertThat(repository.findByProductId(2)).hasSize(1);
+    }
+
     @Test
-    void contextLoads() {
+    void createReviewsReportsDuplicatesPerRow() {
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1)), OK);
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1), review(1, 2), review(1, 2)), OK)
+                .jsonPath("$.created.length()").isEqualTo(1)
+                .jsonPath("$.created[0].reviewId").isEqualTo(2)
+                .jsonPath("$.duplicates.length()").isEqualTo(2)
+                .jsonPath("$.duplicates[0].reviewId").isEqualTo(1)
+                .jsonPath("$.duplicates[1].reviewId").isEqualTo(2);
+
+        assertThat(repository.findByProductId(1)).hasSize(2);
+    }
+
+    @Test
+    void createReviewsOnlyMatchesExactKeys() {
+
+        postAndVerifyReviews(Arrays.asList(review(1, 2), review(2, 1)), OK);
+
+        assertThat(repository.findByProductIdInAndReviewIdIn(Arrays.asList(1, 2), Arrays.asList(1, 2)))
+                .extracting(k -> k.getProductId() + "/" + k.getReviewId())
+                .containsExactlyInAnyOrder("1/2", "2/1");
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1), review(2, 2)), OK)
+                .jsonPath("$.created.length()").isEqualTo(2)
+                .jsonPath("$.duplicates.length()").isEqualTo(0);
+    }
+
+    @Test
+    void deleteReviews() {
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1), review(1, 2), review(2, 1)), OK);
+
+        deleteAndVerifyReviews(1, OK).isEqualTo(2);
+        assertThat(repository.findByProductId(1)).isEmpty();
+        assertThat(repository.findByProductId(2)).hasSize(1);
+
+        deleteAndVerifyReviews(1, OK).isEqualTo(0);
+    }
+
+    @Test
+    void getReviewsByProductIds() {
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1), review(1, 2), review(2, 1)), OK);
+
+        getAndVerifyReviews("?productIds=1,2,3", OK)
+                .jsonPath("$.1.length()").isEqualTo(2)
+                .jsonPath("$.2.length()").isEqualTo(1)
+                .jsonPath("$.3").doesNotExist();
+    }
+
+    @Test
+    void getReviewsByProductIdsTooMany() {
+
+        String productIds = IntStream.rangeClosed(1, 501).mapToObj(String::valueOf).collect(joining(","));
+
+        getAndVerifyReviews("?productIds=" + productIds, UNPROCESSABLE_ENTITY)
+                .jsonPath("$.message").isEqualTo("Too many productIds: 501, max: 500");
+    }
+
+    private Review review(int productId, int reviewId) {
+        return new Review(productId, reviewId, "a", "s", "c", null);
+    }
+
+    private WebTestClient.BodyContentSpec postAndVerifyReviews(List<Review> reviews,
+            HttpStatus expectedStatus) {
+        return client.post()
+                .uri("/review/batch")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(reviews)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody();
+    }
+
+    private WebTestClient.BodyContentSpec getAndVerifyReviews(String query,
+            HttpStatus expectedStatus) {
+        return client.get()
+                .uri("/review" + query)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody();
+    }
+
+    private JsonPathAssertions deleteAndVerifyReviews(int productId,
+            HttpStatus expectedStatus) {
+        return client.delete()
+                .uri("/review?productId=" + productId)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectBody()
+                .jsonPath("$");
     }
 }
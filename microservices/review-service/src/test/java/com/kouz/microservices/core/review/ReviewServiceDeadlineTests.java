@@ -0,0 +1,99 @@
+package com.kouz.microservices.core.review;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+import static org.springframework.http.HttpStatus.*;
+import static org.springframework.http.MediaType.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.TransactionDefinition;
+
+import com.kouz.util.http.Deadline;
+
+/**
+ * Reads run in a transaction whose timeout, which JPA applies as the JDBC query timeout, is the time left until
+ * the {@link Deadline#HEADER} deadline of the request.
+ */
+@Import(ReviewServiceDeadlineTests.RecordingTransactionManager.class)
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"spring.datasource.url=jdbc:h2:mem:review-db"})
+class ReviewServiceDeadlineTests {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private RecordingTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager.definitions.clear();
+    }
+
+    @Test
+    void boundsReadsByTheRemainingDeadline() {
+
+        getReviews("1500").expectStatus().isEqualTo(OK);
+
+        assertThat(transactionManager.definitions).hasSize(1);
+        TransactionDefinition definition = transactionManager.definitions.get(0);
+        assertThat(definition.isReadOnly()).isTrue();
+        assertThat(definition.getTimeout()).isEqualTo(2);
+    }
+
+    @Test
+    void readsWithoutTimeoutWithoutDeadline() {
+
+        getReviews(null).expectStatus().isEqualTo(OK);
+
+        assertThat(transactionManager.definitions)
+                .extracting(TransactionDefinition::getTimeout)
+                .containsOnly(TransactionDefinition.TIMEOUT_DEFAULT);
+    }
+
+    @Test
+    void rejectsRequestsWhoseDeadlineHasPassed() {
+
+        getReviews("0").expectStatus().isEqualTo(GATEWAY_TIMEOUT);
+
+        assertThat(transactionManager.definitions).isEmpty();
+    }
+
+    private WebTestClient.ResponseSpec getReviews(String deadlineMs) {
+        return client.get()
+                .uri("/review?productId=1")
+                .headers(headers -> {
+                    if (deadlineMs != null) headers.set(Deadline.HEADER, deadlineMs);
+                })
+                .accept(APPLICATION_JSON)
+                .exchange();
+    }
+
+    /**
+     * Imported rather than declared in a nested configuration, which the application's own component scan would
+     * pick up in every other test.
+     */
+    static class RecordingTransactionManager extends JpaTransactionManager {
+        private final List<TransactionDefinition> definitions = new CopyOnWriteArrayList<>();
+
+        RecordingTransactionManager(EntityManagerFactory entityManagerFactory) {
+            super(entityManagerFactory);
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            definitions.add(definition);
+            super.doBegin(transaction, definition);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.kouz.microservices.core.review;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.kouz.microservices.api.core.grpc.PageRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdRequest;
+import com.kouz.microservices.api.core.grpc.ProductIdsRequest;
+import com.kouz.microservices.api.core.grpc.ReactorReviewServiceGrpc;
+import com.kouz.microservices.api.core.grpc.ReviewList;
+import com.kouz.microservices.api.core.grpc.ReviewMessage;
+import com.kouz.microservices.core.review.persistence.ReviewRepository;
+import com.kouz.util.grpc.GrpcServerRunner;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:review-db",
+        "app.grpc.enabled: true",
+        "app.grpc.port: 0",
+        "app.grpc.executor-threads: 2"})
+class ReviewServiceGrpcTests {
+
+    @Autowired
+    private GrpcServerRunner grpcServer;
+
+    @Autowired
+    private ReviewRepository repository;
+
+    private ManagedChannel channel;
+    private ReactorReviewServiceGrpc.ReactorReviewServiceStub stub;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+
+        channel = ManagedChannelBuilder.forAddress("localhost", grpcServer.getPort()).usePlaintext().build();
+        stub = ReactorReviewServiceGrpc.newReactorStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+    }
+
+    @Test
+    void createAndGetReviews() {
+
+        StepVerifier.create(stub.createReviews(reviews(review(1, 1), review(1, 2), review(1, 3))))
+                .assertNext(result -> {
+                    assertThat(result.getCreatedCount()).isEqualTo(3);
+                    assertThat(result.getDuplicatesCount()).isZero();
+                })
+                .verifyComplete();
+
+        StepVerifier.create(stub.getReviews(page(1, 1, 10)))
+                .assertNext(found -> {
+                    assertThat(found.getReviewId()).isEqualTo(2);
+                    assertThat(found.getServiceAddress()).isNotEmpty();
+                })
+                .assertNext(found -> assertThat(found.getReviewId()).isEqualTo(3))
+                .verifyComplete();
+    }
+
+    @Test
+    void createReviewsReportsDuplicates() {
+
+        stub.createReviews(reviews(review(1, 1))).block();
+
+        StepVerifier.create(stub.createReviews(reviews(review(1, 1), review(1, 2))))
+                .assertNext(result -> {
+                    assertThat(result.getCreatedList()).extracting(ReviewMessage::getReviewId).containsExactly(2);
+                    assertThat(result.getDuplicatesList()).extracting(ReviewMessage::getReviewId).containsExactly(1);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getReviewsByProductStreamsAllProducts() {
+
+        stub.createReviews(reviews(review(1, 1), review(1, 2), review(2, 1))).block();
+
+        StepVerifier.create(stub.getReviewsByProduct(ProductIdsRequest.newBuilder().addAllProductIds(Arrays.asList(1, 2, 3)).build()))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void servesMoreConcurrentCallsThanExecutorThreads() {
+
+        stub.createReviews(reviews(review(1, 1), review(1, 2))).block();
+
+        StepVerifier.create(Flux.range(0, 20).flatMap(i -> stub.getReviews(page(1, 0, 10)).count()))
+                .expectNextCount(20)
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteReviewsReturnsCount() {
+
+        stub.createReviews(reviews(review(1, 1), review(1, 2), review(2, 1))).block();
+
+        StepVerifier.create(stub.deleteReviews(ProductIdRequest.newBuilder().setProductId(1).build()))
+                .assertNext(result -> assertThat(result.getDeleted()).isEqualTo(2))
+                .verifyComplete();
+    }
+
+    @Test
+    void getReviewsInvalidLimit() {
+
+        StepVerifier.create(stub.getReviews(page(1, 0, 0)))
+                .expectErrorSatisfies(ex -> {
+                    assertThat(ex).isInstanceOf(StatusRuntimeException.class);
+                    assertThat(((StatusRuntimeException) ex).getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+                    assertThat(((StatusRuntimeException) ex).getStatus().getDescription()).isEqualTo("Invalid limit: 0, max: 1000");
+                })
+                .verify();
+    }
+
+    private ReviewList reviews(ReviewMessage... reviews) {
+        return ReviewList.newBuilder().addAllReviews(Arrays.asList(reviews)).build();
+    }
+
+    private ReviewMessage review(int productId, int reviewId) {
+        return ReviewMessage.newBuilder()
+                .setProductId(productId)
+                .setReviewId(reviewId)
+                .setAuthor("Author " + reviewId)
+                .setSubject("Subject " + reviewId)
+                .setContent("Content " + reviewId)
+                .build();
+    }
+
+    private PageRequest page(int productId, int afterId, int limit) {
+        return PageRequest.newBuilder().setProductId(productId).setAfterId(afterId).setLimit(limit).build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.kouz.microservices.core.review;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+import static org.springframework.http.HttpStatus.*;
+import static org.springframework.http.MediaType.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.kouz.microservices.api.core.review.Review;
+import com.kouz.microservices.core.review.persistence.ReactiveReviewRepository;
+import reactor.test.StepVerifier;
+
+@ActiveProfiles("r2dbc")
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"spring.r2dbc.url=r2dbc:h2:mem:///review-db?options=DB_CLOSE_DELAY=-1"})
+class ReviewServiceR2dbcTests {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ReactiveReviewRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        StepVerifier.create(repository.deleteAll()).verifyComplete();
+    }
+
+    @Test
+    void getReviews() {
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1), review(1, 2), review(2, 1)), OK)
+                .jsonPath("$.created.length()").isEqualTo(3);
+
+        client.get()
+                .uri("/review?productId=1")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].productId").isEqualTo(1);
+    }
+
+    @Test
+    void duplicateError() {
+
+        postAndVerifyReview(review(1, 1), OK);
+
+        postAndVerifyReview(review(1, 1), UNPROCESSABLE_ENTITY)
+                .jsonPath("$.message").isEqualTo("Duplicate key, Product Id: 1, Review Id:1");
+    }
+
+    @Test
+    void createReviewsReportsDuplicatesPerRow() {
+
+        postAndVerifyReview(review(1, 1), OK);
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1), review(1, 2), review(1, 2)), OK)
+                .jsonPath("$.created.length()").isEqualTo(1)
+                .jsonPath("$.duplicates.length()").isEqualTo(2);
+
+        StepVerifier.create(repository.findByProductId(1).count()).expectNext(2L).verifyComplete();
+    }
+
+    @Test
+    void createReviewsOnlyMatchesExactKeys() {
+
+        postAndVerifyReviews(Arrays.asList(review(1, 2), review(2, 1)), OK);
+
+        StepVerifier.create(repository.findByProductIdInAndReviewIdIn(Arrays.asList(1, 2), Arrays.asList(1, 2))
+                        .map(e -> e.getProductId() + "/" + e.getReviewId())
+                        .sort())
+                .expectNext("1/2", "2/1")
+                .verifyComplete();
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1), review(2, 2)), OK)
+                .jsonPath("$.created.length()").isEqualTo(2)
+                .jsonPath("$.duplicates.length()").isEqualTo(0);
+    }
+
+    @Test
+    void deleteReviews() {
+
+        postAndVerifyReviews(Arrays.asList(review(1, 1), review(1, 2), review(2, 1)), OK);
+
+        client.delete()
+                .uri("/review?productId=1")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(OK)
+                .expectBody()
+                .jsonPath("$").isEqualTo(2);
+
+        StepVerifier.create(repository.count()).expectNext(1L).verifyComplete();
+    }
+
+    private Review review(int productId, int reviewId) {
+        return new Review(productId, reviewId, "a", "s", "c", null);
+    }
+
+    private WebTestClient.BodyContentSpec postAndVerifyReview(Review review,
+            HttpStatus expectedStatus) {
+        return client.post()
+                .uri("/review")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(review)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectBody();
+    }
+
+    private WebTestClient.BodyContentSpec postAndVerifyReviews(List<Review> reviews,
+            HttpStatus expectedStatus) {
+        return client.post()
+                .uri("/review/batch")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(reviews)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectBody();
+    }
+}
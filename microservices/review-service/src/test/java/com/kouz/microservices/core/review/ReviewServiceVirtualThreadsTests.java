@@ -0,0 +1,28 @@
+package com.kouz.microservices.core.review;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the same scenarios with the JPA calls dispatched onto virtual threads. Needs a Java 21 runtime, which the
+ * build uses when run with {@code -PvirtualThreads}.
+ */
+@EnabledIf("virtualThreadsAvailable")
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:review-db",
+        "app.jdbc.execution-mode=virtual-threads"})
+class ReviewServiceVirtualThreadsTests extends ReviewServiceApplicationTests {
+
+    static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.kouz.util.grpc;
+
+import com.kouz.util.exceptions.DeadlineExceededException;
+import com.kouz.util.exceptions.InvalidInputException;
+import com.kouz.util.exceptions.NotFoundException;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+
+/**
+ * Translates the service exceptions to gRPC status codes and back, the gRPC counterpart of
+ * {@code GlobalControllerExceptionHandler}.
+ */
+public final class GrpcErrors {
+
+    private GrpcErrors() {
+    }
+
+    public static Throwable toStatus(Throwable ex) {
+        if (ex instanceof StatusRuntimeException) return ex;
+        if (ex instanceof NotFoundException) return status(Status.NOT_FOUND, ex);
+        if (ex instanceof InvalidInputException) return status(Status.INVALID_ARGUMENT, ex);
+        if (ex instanceof DeadlineExceededException) return status(Status.DEADLINE_EXCEEDED, ex);
+        return status(Status.INTERNAL, ex);
+    }
+
+    public static Throwable fromStatus(Throwable ex) {
+        if (!(ex instanceof StatusRuntimeException)) return ex;
+
+        Status status = ((StatusRuntimeException) ex).getStatus();
+        switch (status.getCode()) {
+
+            case NOT_FOUND:
+                return new NotFoundException(status.getDescription());
+
+            case INVALID_ARGUMENT:
+                return new InvalidInputException(status.getDescription());
+
+            case DEADLINE_EXCEEDED:
+                return new DeadlineExceededException(status.getDescription(), ex);
+
+            default:
+                return ex;
+        }
+    }
+
+    private static StatusRuntimeException status(Status status, Throwable ex) {
+        return status.withDescription(ex.getMessage()).withCause(ex).asRuntimeException();
+    }
+}
@@ -0,0 +1,43 @@
+package com.kouz.util.grpc;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import com.kouz.util.http.Deadline;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Adapts the reactive service methods to gRPC handlers: the caller's gRPC deadline becomes the {@link Deadline}
+ * of the Reactor context, as {@code DeadlineWebFilter} does for HTTP, and errors become gRPC statuses.
+ * <p>
+ * Must be called from the handler method itself, where the gRPC context of the call is current.
+ */
+public final class GrpcServerCalls {
+
+    private GrpcServerCalls() {
+    }
+
+    public static <T> Mono<T> serve(Mono<T> call) {
+        return call
+                .onErrorMap(GrpcErrors::toStatus)
+                .contextWrite(deadlineOfCurrentCall());
+    }
+
+    public static <T> Flux<T> serveMany(Flux<T> call) {
+        return call
+                .onErrorMap(GrpcErrors::toStatus)
+                .contextWrite(deadlineOfCurrentCall());
+    }
+
+    private static Function<Context, Context> deadlineOfCurrentCall() {
+        io.grpc.Deadline grpcDeadline = io.grpc.Context.current().getDeadline();
+        if (grpcDeadline == null) return context -> context;
+
+        Deadline deadline = Deadline.after(Duration.ofNanos(grpcDeadline.timeRemaining(NANOSECONDS)));
+        return context -> context.put(Deadline.class, deadline);
+    }
+}
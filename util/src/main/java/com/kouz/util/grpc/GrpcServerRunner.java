@@ -0,0 +1,88 @@
+package com.kouz.util.grpc;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import io.grpc.BindableService;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves every {@link BindableService} bean over gRPC on {@code app.grpc.port}, next to the HTTP server, when
+ * {@code app.grpc.enabled} is set.
+ * <p>
+ * Calls run on a pool of {@code app.grpc.executor-threads} threads, not on the transport threads. Not every
+ * service keeps blocking work off the calling thread; the review service runs its JPA calls on it in its
+ * {@code event-loop} mode. Such a call then holds one of these threads, and the transport keeps serving the others.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+public class GrpcServerRunner implements SmartLifecycle {
+    private static final long SHUTDOWN_GRACE_SECONDS = 10;
+
+    private final List<BindableService> services;
+    private final int port;
+    private final int executorThreads;
+    private volatile Server server;
+    private volatile ExecutorService executor;
+
+    public GrpcServerRunner(List<BindableService> services, @Value("${app.grpc.port}") int port,
+            @Value("${app.grpc.executor-threads:16}") int executorThreads) {
+        this.services = services;
+        this.port = port;
+        this.executorThreads = executorThreads;
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newFixedThreadPool(executorThreads, new CustomizableThreadFactory("grpc-server-"));
+        ServerBuilder<?> builder = ServerBuilder.forPort(port).executor(executor);
+        services.forEach(builder::addService);
+
+        try {
+            server = builder.build().start();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to start the gRPC server on port " + port, ex);
+        }
+        log.info("gRPC server started on port {} with {} services", server.getPort(), services.size());
+    }
+
+    @Override
+    public void stop() {
+        Server running = server;
+        if (running == null) return;
+
+        running.shutdown();
+        try {
+            if (!running.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) running.shutdownNow();
+        } catch (InterruptedException ex) {
+            running.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        server = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * The port actually bound, which differs from {@code app.grpc.port} when that is 0.
+     */
+    public int getPort() {
+        return server.getPort();
+    }
+}
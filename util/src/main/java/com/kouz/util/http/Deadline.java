@@ -0,0 +1,43 @@
+package com.kouz.util.http;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import com.kouz.util.exceptions.DeadlineExceededException;
+import reactor.util.context.ContextView;
+
+/**
+ * Point in time after which nobody waits for the answer to the current request.
+ * <p>
+ * It travels in the Reactor context of the request under {@code Deadline.class}, and between services in the
+ * {@link #HEADER} header as the remaining budget in milliseconds.
+ */
+public final class Deadline {
+    public static final String HEADER = "X-Deadline-Ms";
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public static Optional<Deadline> from(ContextView context) {
+        return context.getOrEmpty(Deadline.class);
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(expiresAtNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    public void check(String operation) {
+        if (isExpired()) throw new DeadlineExceededException("Deadline exceeded before " + operation);
+    }
+}
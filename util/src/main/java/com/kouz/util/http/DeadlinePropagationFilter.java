@@ -0,0 +1,38 @@
+package com.kouz.util.http;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import com.kouz.util.exceptions.DeadlineExceededException;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebClient filter that passes the remaining budget of the current request's {@link Deadline} on to the called
+ * service, and does not call it at all once the deadline has passed.
+ */
+public class DeadlinePropagationFilter implements ExchangeFilterFunction {
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(context -> {
+            Optional<Deadline> deadline = Deadline.from(context);
+            if (!deadline.isPresent()) return next.exchange(request);
+
+            Duration remaining = deadline.get().remaining();
+            if (deadline.get().isExpired()) {
+                return Mono.error(new DeadlineExceededException("Deadline exceeded before calling: " + request.url()));
+            }
+
+            ClientRequest withDeadline = ClientRequest.from(request)
+                    .header(Deadline.HEADER, String.valueOf(remaining.toMillis()))
+                    .build();
+            return next.exchange(withDeadline)
+                    .timeout(remaining, Mono.error(() -> new DeadlineExceededException("Deadline exceeded while calling: " + request.url())));
+        });
+    }
+}
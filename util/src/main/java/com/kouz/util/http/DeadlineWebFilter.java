@@ -0,0 +1,105 @@
+package com.kouz.util.http;
+
+import static org.springframework.http.HttpStatus.*;
+import static org.springframework.http.MediaType.*;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.kouz.util.exceptions.DeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Gives every request a {@link Deadline}, from the {@link Deadline#HEADER} header sent by the caller or else
+ * {@code app.deadline.default-timeout}, and cancels the request's work once it has passed.
+ * <p>
+ * Requests that arrive with an expired deadline are answered with 504 without being handled. The default timeout
+ * is off when zero. It does not apply to streamed NDJSON responses, which can legitimately run for long: the
+ * routes in {@code app.deadline.streaming-paths}, and requests that explicitly accept {@code application/x-ndjson}.
+ * A wildcard Accept header, or none, does not count as asking for a stream.
+ */
+@Slf4j
+@Component
+public class DeadlineWebFilter implements WebFilter {
+    private final Duration defaultTimeout;
+    private final Set<String> streamingPaths;
+    private final Counter expiredOnArrival;
+    private final Counter exceeded;
+
+    public DeadlineWebFilter(
+            @Value("${app.deadline.default-timeout:0s}") Duration defaultTimeout,
+            @Value("${app.deadline.streaming-paths:}") Set<String> streamingPaths,
+            MeterRegistry registry) {
+
+        this.defaultTimeout = defaultTimeout;
+        this.streamingPaths = streamingPaths;
+        this.expiredOnArrival = counter(registry, "arrival");
+        this.exceeded = counter(registry, "processing");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Duration budget = budget(exchange.getRequest());
+        if (budget == null) return chain.filter(exchange);
+
+        String path = exchange.getRequest().getPath().value();
+        if (budget.isZero() || budget.isNegative()) {
+            log.debug("Deadline expired on arrival for path: {}", path);
+            expiredOnArrival.increment();
+            return reject(exchange.getResponse());
+        }
+
+        return chain.filter(exchange)
+                .timeout(budget, Mono.defer(() -> {
+                    log.debug("Deadline of {} ms exceeded for path: {}", budget.toMillis(), path);
+                    exceeded.increment();
+                    return reject(exchange.getResponse());
+                }))
+                .contextWrite(Context.of(Deadline.class, Deadline.after(budget)));
+    }
+
+    private Duration budget(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(Deadline.HEADER);
+        if (header != null) {
+            try {
+                return Duration.ofMillis(Long.parseLong(header.trim()));
+            } catch (NumberFormatException nfe) {
+                log.debug("Ignoring invalid {} header: {}", Deadline.HEADER, header);
+            }
+        }
+
+        return (defaultTimeout.isZero() || isStreaming(request)) ? null : defaultTimeout;
+    }
+
+    private boolean isStreaming(ServerHttpRequest request) {
+        return streamingPaths.contains(request.getPath().pathWithinApplication().value())
+                || request.getHeaders().getAccept().stream().anyMatch(APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response) {
+        // Once the response has started there is no status left to change, only the connection to abort
+        if (response.isCommitted()) return Mono.error(new DeadlineExceededException("Deadline exceeded"));
+
+        response.setStatusCode(GATEWAY_TIMEOUT);
+        return response.setComplete();
+    }
+
+    private Counter counter(MeterRegistry registry, String stage) {
+        return Counter.builder("http.server.requests.deadline.expired")
+                .description("Requests whose deadline passed before they were answered")
+                .tag("stage", stage)
+                .register(registry);
+    }
+}
@@ -0,0 +1,122 @@
+package com.kouz.util.http;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Durations spent on the current request, reported to the caller in the {@link #HEADER} response header.
+ * <p>
+ * One instance travels in the Reactor context of each request under {@code ServerTiming.class}, see
+ * {@link ServerTimingWebFilter}. Durations recorded under the same name add up. Outside a request nothing is
+ * recorded.
+ */
+public final class ServerTiming {
+    public static final String HEADER = "Server-Timing";
+
+    private final Map<String, Long> nanos = new LinkedHashMap<>();
+
+    public static Optional<ServerTiming> from(ContextView context) {
+        return context.getOrEmpty(ServerTiming.class);
+    }
+
+    public synchronized void record(String name, long durationNanos) {
+        nanos.merge(name, durationNanos, Long::sum);
+    }
+
+    public synchronized boolean isEmpty() {
+        return nanos.isEmpty();
+    }
+
+    /**
+     * Formats the recorded durations as a {@code Server-Timing} header value, in milliseconds.
+     */
+    public synchronized String toHeaderValue() {
+        StringBuilder header = new StringBuilder();
+        nanos.forEach((name, duration) -> {
+            if (header.length() > 0) header.append(", ");
+            header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", duration / 1_000_000.0));
+        });
+        return header.toString();
+    }
+
+    /**
+     * Adds the durations of a downstream {@code Server-Timing} header under {@code prefix-name}.
+     */
+    public void merge(String prefix, String headerValue) {
+        for (String metric : headerValue.split(",")) {
+            String[] params = metric.trim().split(";");
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (!param.startsWith("dur=")) continue;
+                try {
+                    double millis = Double.parseDouble(param.substring("dur=".length()));
+                    record(prefix + "-" + params[0].trim(), (long) (millis * 1_000_000));
+                } catch (NumberFormatException nfe) {
+                    // Not a duration we can use, the rest of the header still is
+                }
+            }
+        }
+    }
+
+    public static <T> Function<Mono<T>, Mono<T>> timed(String name) {
+        return call -> Mono.deferContextual(context -> {
+            Optional<ServerTiming> timing = from(context);
+            if (!timing.isPresent()) return call;
+
+            long start = System.nanoTime();
+            return call.doFinally(signal -> timing.get().record(name, System.nanoTime() - start));
+        });
+    }
+
+    public static <T> Function<Flux<T>, Flux<T>> timedMany(String name) {
+        return call -> Flux.deferContextual(context -> {
+            Optional<ServerTiming> timing = from(context);
+            if (!timing.isPresent()) return call;
+
+            long start = System.nanoTime();
+            return call.doFinally(signal -> timing.get().record(name, System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * Runs a synchronous step of the request, such as assembling its response, and records its duration.
+     */
+    public static <T> Mono<T> measure(String name, Supplier<T> step) {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(measure(context, name, step)));
+    }
+
+    /**
+     * Runs a synchronous step inside an operator that already has the request's context, and records its duration.
+     */
+    public static <T> T measure(ContextView context, String name, Supplier<T> step) {
+        long start = System.nanoTime();
+        T value = step.get();
+        from(context).ifPresent(timing -> timing.record(name, System.nanoTime() - start));
+        return value;
+    }
+
+    /**
+     * WebClient filter that merges the {@code Server-Timing} header of every response from {@code service} into
+     * the timings of the current request.
+     */
+    public static ExchangeFilterFunction forward(String service) {
+        return (request, next) -> Mono.deferContextual(context -> {
+            Optional<ServerTiming> timing = from(context);
+            if (!timing.isPresent()) return next.exchange(request);
+
+            return next.exchange(request)
+                    .doOnNext(response -> response.headers().header(HEADER)
+                            .forEach(header -> timing.get().merge(service, header)));
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package com.kouz.util.http;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Collects the {@link ServerTiming} of every request and writes it to the {@code Server-Timing} response header,
+ * together with the time spent serializing a single-value response body and the {@code total} time.
+ * <p>
+ * The header is only added to responses for which something was recorded.
+ */
+@Component
+public class ServerTimingWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long start = System.nanoTime();
+        ServerTiming timing = new ServerTiming();
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            if (!timing.isEmpty()) {
+                timing.record("total", System.nanoTime() - start);
+                response.getHeaders().set(ServerTiming.HEADER, timing.toHeaderValue());
+            }
+            return Mono.empty();
+        });
+
+        return chain.filter(exchange.mutate().response(new SerializationTimer(response, timing)).build())
+                .contextWrite(Context.of(ServerTiming.class, timing));
+    }
+
+    /**
+     * A single value is encoded when its body is subscribed, before the response is committed. Streamed bodies
+     * are committed before they are written, so they are not timed.
+     */
+    private static class SerializationTimer extends ServerHttpResponseDecorator {
+        private final ServerTiming timing;
+
+        SerializationTimer(ServerHttpResponse delegate, ServerTiming timing) {
+            super(delegate);
+            this.timing = timing;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!(body instanceof Mono) || timing.isEmpty()) return super.writeWith(body);
+
+            Mono<DataBuffer> encoded = Mono.from(body);
+            return super.writeWith(Mono.defer(() -> {
+                long start = System.nanoTime();
+                return encoded.doOnNext(buffer -> timing.record("serialization", System.nanoTime() - start));
+            }));
+        }
+    }
+}